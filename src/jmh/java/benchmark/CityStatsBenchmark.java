@@ -0,0 +1,32 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import svs.weatherapp.analytics.WeatherAnalyticsServiceImpl;
+import svs.weatherapp.dto.WeatherAnalyticsDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class CityStatsBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int readings;
+
+    private WeatherAnalyticsServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void load() {
+        service = WeatherData.loadedService(42, readings);
+    }
+
+    @Benchmark
+    public List<WeatherAnalyticsDto> getCityStats() {
+        return service.getCityStats();
+    }
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import svs.weatherapp.producer.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Closed-loop HTTP load against a running app: every client sends the next request as soon as the previous one
+// answers. Run it once against an app started with spring.threads.virtual.enabled=false and once with true, and
+// compare the throughput and p99 lines.
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(System.getProperty("load.url", "http://localhost:8080/weather/stats"));
+        int clients = Integer.getInteger("load.clients", 400);
+        long warmupSeconds = Long.getLong("load.warmup-seconds", 10);
+        long durationSeconds = Long.getLong("load.duration-seconds", 30);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        System.out.printf("Warming up %s with %d clients for %d s%n", uri, clients, warmupSeconds);
+        run(client, request, clients, warmupSeconds);
+        System.out.printf("Measuring for %d s%n", durationSeconds);
+        Result result = run(client, request, clients, durationSeconds);
+
+        System.out.printf("requests: %d, errors: %d, throughput: %.0f req/s%n", result.latency.count(),
+                result.errors.sum(), result.latency.count() / (double) durationSeconds);
+        System.out.printf("latency us: p50 %d, p90 %d, p99 %d, p99.9 %d%n", result.latency.percentileMicros(50),
+                result.latency.percentileMicros(90), result.latency.percentileMicros(99),
+                result.latency.percentileMicros(99.9));
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int clients, long seconds)
+            throws InterruptedException {
+        Result result = new Result();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long sentAt = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                result.errors.increment();
+                                continue;
+                            }
+                            result.latency.recordMicros(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAt));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (Exception e) {
+                            result.errors.increment();
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+        }
+        return result;
+    }
+
+    private static class Result {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+    }
+}
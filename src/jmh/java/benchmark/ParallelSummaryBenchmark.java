@@ -0,0 +1,49 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import svs.weatherapp.analytics.WeatherAnalyticsServiceImpl;
+import svs.weatherapp.dto.WeatherSummaryDto;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Whole-history summaries with the period cache off, on summary pools of one worker up to one per core.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+public class ParallelSummaryBenchmark {
+
+    @Param({"10000000"})
+    private int readings;
+
+    @Param({"0", "10000"})
+    private int stations;
+
+    @Param({"1", "4", "32"})
+    private int parallelism;
+
+    private WeatherAnalyticsServiceImpl service;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void load() {
+        service = new WeatherAnalyticsServiceImpl();
+        service.setSummaryCacheEntries(0);
+        service.setSummaryParallelism(parallelism);
+        WeatherData.loadedService(service, 42, readings, stations);
+        end = WeatherData.end(readings);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        service.close();
+    }
+
+    @Benchmark
+    public WeatherSummaryDto getSummaryForPeriod() {
+        return service.getSummaryForPeriod(WeatherData.START, end);
+    }
+}
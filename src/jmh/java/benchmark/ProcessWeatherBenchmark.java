@@ -0,0 +1,55 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import svs.weatherapp.analytics.WeatherAnalyticsServiceImpl;
+import svs.weatherapp.model.Weather;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class ProcessWeatherBenchmark {
+    private static final int READINGS_PER_INVOCATION = 500;
+
+    @Param({"false", "true"})
+    private boolean batched;
+
+    private final List<Weather> batch = new ArrayList<>(READINGS_PER_INVOCATION);
+    private SplittableRandom random;
+    private WeatherAnalyticsServiceImpl service;
+    private long index;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        service = new WeatherAnalyticsServiceImpl();
+        random = new SplittableRandom(42);
+        index = 0;
+    }
+
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        batch.clear();
+        for (int i = 0; i < READINGS_PER_INVOCATION; i++) {
+            batch.add(WeatherData.reading(random, index++));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READINGS_PER_INVOCATION)
+    public void processWeather() {
+        if (batched) {
+            service.processWeather(batch);
+            return;
+        }
+        for (Weather weather : batch) {
+            service.processWeather(weather);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import svs.weatherapp.analytics.WeatherAnalyticsServiceImpl;
+import svs.weatherapp.dto.WeatherSummaryDto;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+public class SummaryForPeriodBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int readings;
+
+    // narrow: the last ten minutes, unaligned to rollup buckets; wide: the whole history
+    @Param({"narrow", "wide"})
+    private String range;
+
+    private WeatherAnalyticsServiceImpl service;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void load() {
+        service = WeatherData.loadedService(42, readings);
+        LocalDateTime last = WeatherData.end(readings);
+        if ("narrow".equals(range)) {
+            start = last.minusMinutes(10).plusSeconds(7).plusNanos(250_000_000);
+            end = last.minusSeconds(13);
+        } else {
+            start = WeatherData.START;
+            end = last;
+        }
+    }
+
+    @Benchmark
+    public WeatherSummaryDto getSummaryForPeriod() {
+        return service.getSummaryForPeriod(start, end);
+    }
+
+    @Benchmark
+    public WeatherSummaryDto getSummaryForPeriodWithTop10() {
+        return service.getSummaryForPeriod(start, end, 10);
+    }
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import svs.weatherapp.analytics.WeatherAnalyticsServiceImpl;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+final class WeatherData {
+    static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    static final int SECONDS_PER_READING = 5;
+
+    private static final City[] CITIES = City.values();
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+    private static final int BATCH_SIZE = 1_000;
+
+    private WeatherData() {
+    }
+
+    static Weather reading(SplittableRandom random, long index) {
+        return Weather.builder()
+                .city(CITIES[random.nextInt(CITIES.length)])
+                .temperature(Math.round(random.nextDouble(-30, 35) * 10) / 10.0)
+                .condition(CONDITIONS[random.nextInt(CONDITIONS.length)])
+                .date(START.plusSeconds(index * SECONDS_PER_READING).plusNanos(random.nextInt(1_000_000_000)))
+                .build();
+    }
+
+    // A reading from one of the cities or, when stations is positive, from one of that many synthetic stations.
+    static Weather reading(SplittableRandom random, long index, int stations) {
+        Weather weather = reading(random, index);
+        if (stations > 0) {
+            weather.setCity(null);
+            weather.setStation("STATION-" + random.nextInt(stations));
+        }
+        return weather;
+    }
+
+    static WeatherAnalyticsServiceImpl loadedService(long seed, int count) {
+        return loadedService(new WeatherAnalyticsServiceImpl(), seed, count, 0);
+    }
+
+    static WeatherAnalyticsServiceImpl loadedService(WeatherAnalyticsServiceImpl service, long seed, int count,
+                                                     int stations) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Weather> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            batch.add(reading(random, i, stations));
+            if (batch.size() == BATCH_SIZE) {
+                service.processWeather(batch);
+                batch.clear();
+            }
+        }
+        service.processWeather(batch);
+        return service;
+    }
+
+    static LocalDateTime end(int count) {
+        return START.plusSeconds((long) count * SECONDS_PER_READING);
+    }
+}
@@ -0,0 +1,47 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import svs.weatherapp.dto.WeatherSummaryDto;
+import svs.weatherapp.mapper.WeatherSummaryMapper;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherSummaryMapperBenchmark {
+    private Weather hottest;
+    private Weather coldest;
+    private Weather cloudiest;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime date = LocalDateTime.of(2024, 7, 15, 14, 30);
+        hottest = Weather.builder().city(City.TYUMEN).temperature(34.5).condition(WeatherCondition.SUNNY)
+                .date(date).build();
+        coldest = Weather.builder().city(City.MAGADAN).temperature(-29.0).condition(WeatherCondition.CLOUDY)
+                .date(date.minusMonths(6)).build();
+        cloudiest = Weather.builder().city(City.PITER).temperature(12.0).condition(WeatherCondition.CLOUDY)
+                .date(date.minusDays(3)).build();
+    }
+
+    @Benchmark
+    public WeatherSummaryDto toWeatherSummaryDto() {
+        return WeatherSummaryMapper.toWeatherSummaryDto(City.PITER.name(), City.TYUMEN.name(), City.PITER.name(),
+                hottest, coldest, cloudiest, City.MAGADAN.name(), City.TYUMEN.name(), City.PITER.name(), 1_000_000,
+                4.25, 333_000, 334_000, 333_000, 3.5, 21.0, 31.5);
+    }
+
+    @Benchmark
+    public WeatherSummaryDto toWeatherSummaryDtoEmpty() {
+        return WeatherSummaryMapper.toWeatherSummaryDto(null, null, null, null, null, null, null, null, null,
+                0, 0.0, 0, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,457 @@
+package svs.weatherapp.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import svs.weatherapp.jfr.SnapshotPublishEvent;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.station.StationRegistry;
+import svs.weatherapp.storage.ShardCheckpoint;
+import svs.weatherapp.storage.WeatherSegmentLog;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Aggregates for one Kafka partition. Only the listener thread that owns the partition writes here;
+// the lock makes ownership hand-offs on rebalance and the background publisher safe.
+@Slf4j
+public class AnalyticsShard {
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+    private static final int MAX_EVENT_STATIONS = 64;
+
+    private final StationRegistry registry = StationRegistry.global();
+
+    private final int partition;
+
+    private final WeatherSegmentLog segmentLog;
+
+    // Indexed by station id and created on a station's first reading.
+    private CityAccumulator[] cityAccumulators = new CityAccumulator[16];
+
+    // Stations with readings since the last publication; only their pages of the stats table are copied.
+    private int[] dirtyStations = new int[16];
+    private int dirtyCount;
+
+    private StationStatsTable stationStats = StationStatsTable.EMPTY;
+
+    private final WeatherStore store = new WeatherStore();
+
+    private final WeatherRollups rollups = new WeatherRollups();
+
+    // Updated as readings are applied rather than on publication, so recent stats are never behind.
+    private final SlidingWindows windows = new SlidingWindows();
+
+    private final Lock writeLock = new ReentrantLock();
+
+    private long version;
+
+    private long publishedVersion;
+
+    private long lastPublishNanos = System.nanoTime();
+
+    // Offset of the last Kafka record applied, or -1.
+    private long offset = -1;
+
+    private volatile AnalyticsSnapshot snapshot;
+
+    // Versions of the snapshots that rollup readers are working on, with their reader counts.
+    private final ConcurrentSkipListMap<Long, Integer> pinnedVersions = new ConcurrentSkipListMap<>();
+
+    // Oldest snapshot version a reader may still pin. Written on publication before the pins are looked at, so a
+    // reader that pins an older snapshot afterwards notices and moves to the current one.
+    private volatile long pinnableVersion;
+
+    // Oldest snapshot version whose rollup buckets must stay reachable.
+    private long oldestSnapshotVersion;
+
+    public AnalyticsShard(int partition) {
+        this(partition, null, null);
+    }
+
+    // History already in the segment log is mapped back in before the shard takes new readings, and consumption
+    // resumes after the offset of the last batch in the log. With a checkpoint the log is cut back to the records
+    // it covers, and records after its offset are consumed again; without a log only the checkpointed city
+    // counters come back.
+    public AnalyticsShard(int partition, WeatherSegmentLog segmentLog, ShardCheckpoint checkpoint) {
+        this.partition = partition;
+        this.segmentLog = segmentLog;
+        if (checkpoint != null && segmentLog != null && segmentLog.size() < checkpoint.getLogRecords()) {
+            checkpoint = null;
+        }
+        if (segmentLog != null) {
+            if (checkpoint != null) {
+                segmentLog.truncate(checkpoint.getLogRecords());
+            }
+            segmentLog.scan(this::apply);
+        } else if (checkpoint != null) {
+            // Checkpoints name their stations; this is where the names are mapped to this process's ids.
+            checkpoint.getStationStats().forEach((name, stats) -> accumulator(registry.id(name)).restore(stats));
+        }
+        if (checkpoint != null) {
+            this.offset = checkpoint.getOffset();
+        } else if (segmentLog != null) {
+            this.offset = segmentLog.lastOffset();
+        }
+        publishSnapshot();
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getLastOffset() {
+        writeLock.lock();
+        try {
+            return offset;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public AnalyticsSnapshot snapshot() {
+        return snapshot;
+    }
+
+    // The whole run is resolved before any state changes, so a batch that throws has applied nothing and can be
+    // redelivered without counting readings twice. Readings without a date, condition or valid station name are
+    // skipped like tombstones.
+    public void processWeather(List<Weather> weathers, long lastOffset, long publishIntervalMs) {
+        if (weathers.isEmpty() && lastOffset < 0) {
+            return;
+        }
+        int count = 0;
+        long[] seconds = new long[weathers.size()];
+        int[] nanos = new int[weathers.size()];
+        int[] cityCodes = new int[weathers.size()];
+        int[] conditionCodes = new int[weathers.size()];
+        double[] temperatures = new double[weathers.size()];
+        for (Weather weather : weathers) {
+            String station = weather.stationName();
+            if (weather.getDate() == null || weather.getCondition() == null || !StationRegistry.isValidName(station)) {
+                continue;
+            }
+            seconds[count] = WeatherStore.toEpochSecond(weather.getDate());
+            nanos[count] = weather.getDate().getNano();
+            cityCodes[count] = registry.id(station);
+            conditionCodes[count] = weather.getCondition().ordinal();
+            temperatures[count] = weather.getTemperature();
+            count++;
+        }
+        if (count < weathers.size()) {
+            log.warn("Partition {}: skipped {} incomplete readings", partition, weathers.size() - count);
+        }
+
+        writeLock.lock();
+        try {
+            offset = Math.max(offset, lastOffset);
+            for (int i = 0; i < count; i++) {
+                if (segmentLog != null) {
+                    segmentLog.append(seconds[i], nanos[i], cityCodes[i], conditionCodes[i], temperatures[i]);
+                }
+                apply(seconds[i], nanos[i], cityCodes[i], conditionCodes[i], temperatures[i]);
+            }
+            if (segmentLog != null && lastOffset >= 0) {
+                segmentLog.endBatch(offset);
+            }
+            publishIfDue(publishIntervalMs);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void publishPending(boolean wait) {
+        if (wait) {
+            writeLock.lock();
+        } else if (!writeLock.tryLock()) {
+            return;
+        }
+        try {
+            if (version != publishedVersion) {
+                publishSnapshot();
+                if (segmentLog != null) {
+                    segmentLog.force();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // The log is forced before the checkpoint is handed out, so every record it counts is on disk.
+    public ShardCheckpoint checkpoint() {
+        publishPending(true);
+        AnalyticsSnapshot current = snapshot;
+        if (segmentLog != null) {
+            segmentLog.force();
+        }
+        Map<String, CityStats> stationStats = new LinkedHashMap<>();
+        current.getStationStats().forEach((stats, station) -> stationStats.put(registry.name(station), stats));
+        return new ShardCheckpoint(partition, current.getOffset(), current.getLogRecords(), stationStats);
+    }
+
+    // Returns the version of the snapshot the period was read from.
+    public long accumulatePeriod(LocalDateTime start, LocalDateTime end, SummaryAccumulator accumulator) {
+        return accumulatePeriod(start, end, accumulator, null);
+    }
+
+    // With a pool, the whole seconds of the period are cut into pieces that are summarized on it and the partial
+    // summaries merged; every piece reads the same snapshot.
+    public long accumulatePeriod(LocalDateTime start, LocalDateTime end, SummaryAccumulator accumulator,
+                                 ForkJoinPool pool) {
+        AnalyticsSnapshot snapshot = pin();
+        try {
+            return accumulatePeriod(snapshot, start, end, accumulator, pool);
+        } finally {
+            unpin(snapshot);
+        }
+    }
+
+    private long accumulatePeriod(AnalyticsSnapshot snapshot, LocalDateTime start, LocalDateTime end,
+                                  SummaryAccumulator accumulator, ForkJoinPool pool) {
+        WeatherStore.View history = snapshot.getHistory();
+        long startSecond = WeatherStore.toEpochSecond(start);
+        long endSecond = WeatherStore.toEpochSecond(end);
+        long fromSecond = start.getNano() == 0 ? startSecond : startSecond + 1;
+
+        if (fromSecond >= endSecond) {
+            history.scan(history.lowerBound(startSecond, start.getNano()), history.upperBound(endSecond, end.getNano()),
+                    accumulator);
+            return snapshot.getVersion();
+        }
+
+        history.scan(history.lowerBound(startSecond, start.getNano()), history.lowerBound(fromSecond, 0), accumulator);
+        long[] bounds = pool == null ? null : pieceBounds(fromSecond, endSecond, pool.getParallelism());
+        if (bounds != null && bounds.length > 2) {
+            SummaryAccumulator pieces = pool.invoke(new PieceTask(snapshot, bounds, 0, bounds.length - 1));
+            accumulator.merge(pieces);
+            accumulator.addScanned(pieces);
+        } else {
+            accumulateWholeSeconds(snapshot, fromSecond, endSecond, 0, accumulator);
+        }
+        history.scan(history.lowerBound(endSecond, 0), history.upperBound(endSecond, end.getNano()), accumulator);
+        return snapshot.getVersion();
+    }
+
+    public List<Weather> extremeReadings(LocalDateTime start, LocalDateTime end, int limit, boolean hottest) {
+        WeatherStore.View history = snapshot.getHistory();
+        int[] indexes = history.extremeIndexes(history.lowerBound(WeatherStore.toEpochSecond(start), start.getNano()),
+                history.upperBound(WeatherStore.toEpochSecond(end), end.getNano()), limit, hottest);
+        List<Weather> readings = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            readings.add(history.get(index));
+        }
+        return readings;
+    }
+
+    public long latestSecond() {
+        return windows.latestSecond();
+    }
+
+    public void accumulateRecent(long referenceSecond, RecentAccumulator accumulator) {
+        windows.accumulate(referenceSecond, accumulator);
+    }
+
+    // Whether a reading newer than the given version landed on any day the period touches.
+    public boolean modifiedSince(long version, LocalDateTime start, LocalDateTime end) {
+        if (snapshot.getVersion() <= version) {
+            return false;
+        }
+        AnalyticsSnapshot pinned = pin();
+        try {
+            long fromDay = Math.floorDiv(WeatherStore.toEpochSecond(start), rollups.bucketSeconds(0));
+            long toDay = Math.floorDiv(WeatherStore.toEpochSecond(end), rollups.bucketSeconds(0));
+            return rollups.latestVersion(0, fromDay, toDay, pinned.getVersion()) > version;
+        } finally {
+            unpin(pinned);
+        }
+    }
+
+    public long olderRollupVersions() {
+        return rollups.olderVersions();
+    }
+
+    private void apply(long second, int nano, int cityCode, int conditionCode, double temperature) {
+        version++;
+        accumulator(cityCode).add(CONDITIONS[conditionCode], temperature);
+        store.append(second, nano, cityCode, conditionCode, temperature);
+        rollups.add(second, nano, cityCode, conditionCode, temperature, version, publishedVersion,
+                oldestSnapshotVersion);
+        windows.add(second, nano, cityCode, conditionCode, temperature);
+    }
+
+    private CityAccumulator accumulator(int station) {
+        if (station >= cityAccumulators.length) {
+            cityAccumulators = Arrays.copyOf(cityAccumulators, Math.max(station + 1, cityAccumulators.length * 2));
+        }
+        CityAccumulator accumulator = cityAccumulators[station];
+        if (accumulator == null) {
+            accumulator = new CityAccumulator();
+            cityAccumulators[station] = accumulator;
+        }
+        if (!accumulator.isDirty()) {
+            if (dirtyCount == dirtyStations.length) {
+                dirtyStations = Arrays.copyOf(dirtyStations, dirtyCount * 2);
+            }
+            dirtyStations[dirtyCount++] = station;
+        }
+        return accumulator;
+    }
+
+    private void publishIfDue(long publishIntervalMs) {
+        if (publishIntervalMs <= 0 || System.nanoTime() - lastPublishNanos >= publishIntervalMs * 1_000_000) {
+            publishSnapshot();
+        }
+    }
+
+    private AnalyticsSnapshot pin() {
+        while (true) {
+            AnalyticsSnapshot current = snapshot;
+            pinnedVersions.merge(current.getVersion(), 1, Integer::sum);
+            if (current.getVersion() >= pinnableVersion) {
+                return current;
+            }
+            unpin(current);
+        }
+    }
+
+    private void unpin(AnalyticsSnapshot pinned) {
+        pinnedVersions.computeIfPresent(pinned.getVersion(), (key, readers) -> readers == 1 ? null : readers - 1);
+    }
+
+    private void publishSnapshot() {
+        SnapshotPublishEvent event = new SnapshotPublishEvent();
+        event.begin();
+        int[] changed = Arrays.copyOf(dirtyStations, dirtyCount);
+        Arrays.sort(changed);
+        stationStats = stationStats.with(changed, station -> cityAccumulators[station].publish());
+        dirtyCount = 0;
+        store.publish();
+        publishedVersion = version;
+        lastPublishNanos = System.nanoTime();
+        AnalyticsSnapshot published = new AnalyticsSnapshot(version, offset,
+                segmentLog != null ? segmentLog.size() : 0, stationStats, store.view());
+        snapshot = published;
+        pinnableVersion = version;
+        Map.Entry<Long, Integer> oldestPinned = pinnedVersions.firstEntry();
+        oldestSnapshotVersion = oldestPinned != null ? Math.min(version, oldestPinned.getKey()) : version;
+        event.end();
+        if (event.shouldCommit()) {
+            event.partition = partition;
+            event.version = version;
+            event.readings = published.getHistory().size();
+            event.cities = stationNames(changed);
+            event.commit();
+        }
+    }
+
+    private String stationNames(int[] stations) {
+        StringJoiner names = new StringJoiner(",");
+        for (int i = 0; i < Math.min(stations.length, MAX_EVENT_STATIONS); i++) {
+            names.add(registry.name(stations[i]));
+        }
+        if (stations.length > MAX_EVENT_STATIONS) {
+            names.add("+" + (stations.length - MAX_EVENT_STATIONS));
+        }
+        return names.toString();
+    }
+
+    private void accumulateWholeSeconds(AnalyticsSnapshot snapshot, long fromSecond, long toSecond, int level,
+                                        SummaryAccumulator accumulator) {
+        if (fromSecond >= toSecond) {
+            return;
+        }
+        WeatherStore.View history = snapshot.getHistory();
+        if (level == rollups.levelCount()) {
+            history.scan(history.lowerBound(fromSecond, 0), history.lowerBound(toSecond, 0), accumulator);
+            return;
+        }
+
+        long bucketSeconds = rollups.bucketSeconds(level);
+        long firstBucket = Math.ceilDiv(fromSecond, bucketSeconds);
+        long lastBucket = Math.floorDiv(toSecond, bucketSeconds);
+        if (firstBucket >= lastBucket) {
+            accumulateWholeSeconds(snapshot, fromSecond, toSecond, level + 1, accumulator);
+            return;
+        }
+
+        accumulateWholeSeconds(snapshot, fromSecond, firstBucket * bucketSeconds, level + 1, accumulator);
+        rollups.accumulate(level, firstBucket, lastBucket, snapshot.getVersion(), accumulator,
+                (cityCode, bucketFrom, bucketTo) -> history.scan(history.lowerBound(bucketFrom, 0),
+                        history.lowerBound(bucketTo, 0), (second, nano, city, condition, temperature) -> {
+                            if (city == cityCode) {
+                                accumulator.accept(second, nano, city, condition, temperature);
+                            }
+                        }));
+        accumulateWholeSeconds(snapshot, lastBucket * bucketSeconds, toSecond, level + 1, accumulator);
+    }
+
+    // Bounds of the pieces a parallel summary of [fromSecond, toSecond) is cut into: the partial days at either
+    // edge, which go down to hourly and minute rollups and row scans, each get a piece of their own, and the
+    // whole days between them are grouped into at most one chunk per worker.
+    private long[] pieceBounds(long fromSecond, long toSecond, int parallelism) {
+        long daySeconds = rollups.bucketSeconds(0);
+        long firstDay = Math.ceilDiv(fromSecond, daySeconds);
+        long lastDay = Math.floorDiv(toSecond, daySeconds);
+        if (firstDay >= lastDay) {
+            return new long[]{fromSecond, toSecond};
+        }
+        long days = lastDay - firstDay;
+        int chunks = (int) Math.min(days, parallelism);
+        long[] bounds = new long[chunks + 3];
+        int count = 0;
+        bounds[count++] = fromSecond;
+        if (firstDay * daySeconds > fromSecond) {
+            bounds[count++] = firstDay * daySeconds;
+        }
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            bounds[count++] = (firstDay + days * chunk / chunks) * daySeconds;
+        }
+        if (lastDay * daySeconds < toSecond) {
+            bounds[count++] = lastDay * daySeconds;
+        }
+        bounds[count++] = toSecond;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    // Summarizes pieces [fromPiece, toPiece) of the given bounds, splitting in halves down to single pieces.
+    // Partials are merged left to right, so the result does not depend on scheduling.
+    private final class PieceTask extends RecursiveTask<SummaryAccumulator> {
+        private final AnalyticsSnapshot snapshot;
+        private final long[] bounds;
+        private final int fromPiece;
+        private final int toPiece;
+
+        private PieceTask(AnalyticsSnapshot snapshot, long[] bounds, int fromPiece, int toPiece) {
+            this.snapshot = snapshot;
+            this.bounds = bounds;
+            this.fromPiece = fromPiece;
+            this.toPiece = toPiece;
+        }
+
+        @Override
+        protected SummaryAccumulator compute() {
+            if (toPiece - fromPiece == 1) {
+                SummaryAccumulator partial = new SummaryAccumulator();
+                accumulateWholeSeconds(snapshot, bounds[fromPiece], bounds[toPiece], 0, partial);
+                return partial;
+            }
+            int middle = (fromPiece + toPiece) >>> 1;
+            PieceTask left = new PieceTask(snapshot, bounds, fromPiece, middle);
+            left.fork();
+            SummaryAccumulator right = new PieceTask(snapshot, bounds, middle, toPiece).compute();
+            SummaryAccumulator merged = left.join();
+            merged.merge(right);
+            merged.addScanned(right);
+            return merged;
+        }
+    }
+}
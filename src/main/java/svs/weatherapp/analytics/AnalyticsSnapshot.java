@@ -0,0 +1,20 @@
+package svs.weatherapp.analytics;
+
+import lombok.Value;
+
+@Value
+public class AnalyticsSnapshot {
+    long version;
+    long offset;
+    long logRecords;
+    StationStatsTable stationStats;
+    WeatherStore.View history;
+
+    public CityStats getCityStats(int cityCode) {
+        return stationStats.get(cityCode);
+    }
+
+    public CityStats[] getCityStats() {
+        return stationStats.toArray();
+    }
+}
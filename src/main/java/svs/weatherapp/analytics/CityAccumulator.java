@@ -0,0 +1,62 @@
+package svs.weatherapp.analytics;
+
+import svs.weatherapp.model.WeatherCondition;
+
+// Plain fields rather than LongAdder stripes: only the listener thread owning the shard writes here, and readers
+// only ever see the CityStats it publishes, so striping would cost every reading and buy nothing.
+public class CityAccumulator {
+    private long sunnyCount;
+    private long rainyCount;
+    private long cloudyCount;
+    private long temperatureCount;
+    private double temperatureSum;
+    private double minTemperature = Double.POSITIVE_INFINITY;
+    private double maxTemperature = Double.NEGATIVE_INFINITY;
+    private final TemperatureHistogram.Counts temperatureBins = new TemperatureHistogram.Counts();
+
+    private CityStats published = CityStats.EMPTY;
+    private boolean dirty;
+
+    public void add(WeatherCondition condition, double temperature) {
+        temperatureCount++;
+        temperatureSum += temperature;
+        minTemperature = Math.min(minTemperature, temperature);
+        maxTemperature = Math.max(maxTemperature, temperature);
+        temperatureBins.add(temperature);
+
+        switch (condition) {
+            case SUNNY -> sunnyCount++;
+            case RAINY -> rainyCount++;
+            case CLOUDY -> cloudyCount++;
+        }
+        dirty = true;
+    }
+
+    public void restore(CityStats stats) {
+        if (stats.getTemperatureCount() == 0) {
+            return;
+        }
+        sunnyCount += stats.getSunnyCount();
+        rainyCount += stats.getRainyCount();
+        cloudyCount += stats.getCloudyCount();
+        temperatureCount += stats.getTemperatureCount();
+        temperatureSum += stats.getTemperatureSum();
+        minTemperature = Math.min(minTemperature, stats.getMinTemperature());
+        maxTemperature = Math.max(maxTemperature, stats.getMaxTemperature());
+        temperatureBins.add(stats.getHistogram());
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public CityStats publish() {
+        if (dirty) {
+            published = new CityStats(sunnyCount, rainyCount, cloudyCount, temperatureCount, temperatureSum,
+                    minTemperature, maxTemperature, temperatureBins.toHistogram());
+            dirty = false;
+        }
+        return published;
+    }
+}
@@ -0,0 +1,51 @@
+package svs.weatherapp.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.DoubleSummaryStatistics;
+
+@Value
+@AllArgsConstructor
+public class CityStats {
+    public static final CityStats EMPTY = new CityStats(0, 0, 0, 0, 0, 0, 0, TemperatureHistogram.EMPTY);
+
+    long sunnyCount;
+    long rainyCount;
+    long cloudyCount;
+    long temperatureCount;
+    double temperatureSum;
+    double minTemperature;
+    double maxTemperature;
+    TemperatureHistogram histogram;
+
+    public CityStats(long sunnyCount, long rainyCount, long cloudyCount, long temperatureCount, double temperatureSum,
+                     double minTemperature, double maxTemperature) {
+        this(sunnyCount, rainyCount, cloudyCount, temperatureCount, temperatureSum, minTemperature, maxTemperature,
+                TemperatureHistogram.EMPTY);
+    }
+
+    public CityStats merge(CityStats other) {
+        if (other.temperatureCount == 0) {
+            return this;
+        }
+        if (temperatureCount == 0) {
+            return other;
+        }
+        return new CityStats(sunnyCount + other.sunnyCount, rainyCount + other.rainyCount,
+                cloudyCount + other.cloudyCount, temperatureCount + other.temperatureCount,
+                temperatureSum + other.temperatureSum, Math.min(minTemperature, other.minTemperature),
+                Math.max(maxTemperature, other.maxTemperature), histogram.merge(other.histogram));
+    }
+
+    public double temperaturePercentile(double percentile) {
+        return histogram.percentile(percentile, minTemperature, maxTemperature);
+    }
+
+    public DoubleSummaryStatistics toTemperatureStats() {
+        if (temperatureCount == 0) {
+            return null;
+        }
+        return new DoubleSummaryStatistics(temperatureCount, minTemperature, maxTemperature, temperatureSum);
+    }
+}
@@ -0,0 +1,97 @@
+package svs.weatherapp.analytics;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// LRU cache of closed-window summaries. Each entry remembers the shard generation and the snapshot version it read
+// from every shard, and is dropped as soon as the set of shards changes or a newer reading lands on one of the days
+// the window touches. Guarded by a lock rather than a monitor so request handlers on virtual threads never pin their
+// carrier.
+public class PeriodSummaryCache {
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+    private final Lock lock = new ReentrantLock();
+
+    public PeriodSummaryCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > PeriodSummaryCache.this.maxEntries;
+            }
+        };
+    }
+
+    public SummaryAccumulator get(LocalDateTime start, LocalDateTime end, long shardGeneration,
+                                  Collection<AnalyticsShard> shards) {
+        Key key = new Key(start, end);
+        Entry entry;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (entry == null) {
+            return null;
+        }
+        boolean stale = entry.getShardGeneration() != shardGeneration;
+        for (AnalyticsShard shard : shards) {
+            if (stale) {
+                break;
+            }
+            stale = shard.modifiedSince(entry.getShardVersions().getOrDefault(shard.getPartition(), 0L), start, end);
+        }
+        if (stale) {
+            lock.lock();
+            try {
+                entries.remove(key, entry);
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        return entry.getAccumulator();
+    }
+
+    public void put(LocalDateTime start, LocalDateTime end, long shardGeneration, SummaryAccumulator accumulator,
+                    Map<Integer, Long> shardVersions) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            entries.put(new Key(start, end), new Entry(accumulator, shardGeneration, Map.copyOf(shardVersions)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Value
+    private static class Key {
+        LocalDateTime start;
+        LocalDateTime end;
+    }
+
+    @Value
+    private static class Entry {
+        SummaryAccumulator accumulator;
+        long shardGeneration;
+        Map<Integer, Long> shardVersions;
+    }
+}
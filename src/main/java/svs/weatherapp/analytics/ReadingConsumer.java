@@ -0,0 +1,6 @@
+package svs.weatherapp.analytics;
+
+@FunctionalInterface
+public interface ReadingConsumer {
+    void accept(long epochSecond, int nano, int cityCode, int conditionCode, double temperature);
+}
@@ -0,0 +1,133 @@
+package svs.weatherapp.analytics;
+
+import svs.weatherapp.dto.RecentWeatherDto;
+import svs.weatherapp.dto.WindowStatsDto;
+import svs.weatherapp.mapper.RecentWeatherMapper;
+import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.station.StationRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Window totals by station id, window-minor. Arrays grow to the highest station seen.
+public class RecentAccumulator {
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+    private static final int WINDOWS = SlidingWindows.NAMES.length;
+
+    private final StationRegistry registry = StationRegistry.global();
+
+    private int stations;
+    private long[] counts;
+    private long[] sunnyCounts;
+    private long[] rainyCounts;
+    private long[] cloudyCounts;
+    private double[] sums;
+    private double[] mins;
+    private double[] maxs;
+
+    private long[] latestSeconds;
+    private int[] latestNanos;
+    private int[] latestConditions;
+    private double[] latestTemperatures;
+
+    public RecentAccumulator() {
+        allocate(registry.cityCount());
+    }
+
+    public void add(int window, int stationId, long count, long sunnyCount, long rainyCount, long cloudyCount,
+                    double sum, double min, double max) {
+        ensureStation(stationId);
+        int index = stationId * WINDOWS + window;
+        counts[index] += count;
+        sunnyCounts[index] += sunnyCount;
+        rainyCounts[index] += rainyCount;
+        cloudyCounts[index] += cloudyCount;
+        sums[index] += sum;
+        mins[index] = Math.min(mins[index], min);
+        maxs[index] = Math.max(maxs[index], max);
+    }
+
+    public void latest(int stationId, long epochSecond, int nano, int conditionCode, double temperature) {
+        ensureStation(stationId);
+        if (latestSeconds[stationId] == Long.MIN_VALUE || WeatherStore.compare(epochSecond, nano,
+                latestSeconds[stationId], latestNanos[stationId]) > 0) {
+            latestSeconds[stationId] = epochSecond;
+            latestNanos[stationId] = nano;
+            latestConditions[stationId] = conditionCode;
+            latestTemperatures[stationId] = temperature;
+        }
+    }
+
+    public void merge(RecentAccumulator other) {
+        for (int index = 0; index < other.stations * WINDOWS; index++) {
+            if (other.counts[index] > 0) {
+                add(index % WINDOWS, index / WINDOWS, other.counts[index], other.sunnyCounts[index],
+                        other.rainyCounts[index], other.cloudyCounts[index], other.sums[index], other.mins[index],
+                        other.maxs[index]);
+            }
+        }
+        for (int station = 0; station < other.stations; station++) {
+            if (other.latestSeconds[station] != Long.MIN_VALUE) {
+                latest(station, other.latestSeconds[station], other.latestNanos[station],
+                        other.latestConditions[station], other.latestTemperatures[station]);
+            }
+        }
+    }
+
+    // The City stations are always listed; other stations only once they have a reading.
+    public List<RecentWeatherDto> toRecentWeatherDtos() {
+        List<RecentWeatherDto> result = new ArrayList<>(stations);
+        for (int station = 0; station < stations; station++) {
+            boolean hasLatest = latestSeconds[station] != Long.MIN_VALUE;
+            if (!hasLatest && station >= registry.cityCount()) {
+                continue;
+            }
+            List<WindowStatsDto> windows = new ArrayList<>(WINDOWS);
+            for (int window = 0; window < WINDOWS; window++) {
+                int index = station * WINDOWS + window;
+                windows.add(RecentWeatherMapper.toWindowStatsDto(SlidingWindows.NAMES[window], counts[index],
+                        sunnyCounts[index], rainyCounts[index], cloudyCounts[index], sums[index], mins[index],
+                        maxs[index]));
+            }
+            result.add(RecentWeatherMapper.toRecentWeatherDto(registry.name(station),
+                    hasLatest ? WeatherStore.toDateTime(latestSeconds[station], latestNanos[station]) : null,
+                    hasLatest ? CONDITIONS[latestConditions[station]] : null,
+                    latestTemperatures[station], windows));
+        }
+        return result;
+    }
+
+    private void ensureStation(int stationId) {
+        if (stationId >= stations) {
+            allocate(Math.max(stationId + 1, stations * 2));
+        }
+    }
+
+    private void allocate(int capacity) {
+        int from = stations;
+        counts = grow(counts, capacity * WINDOWS);
+        sunnyCounts = grow(sunnyCounts, capacity * WINDOWS);
+        rainyCounts = grow(rainyCounts, capacity * WINDOWS);
+        cloudyCounts = grow(cloudyCounts, capacity * WINDOWS);
+        sums = grow(sums, capacity * WINDOWS);
+        mins = grow(mins, capacity * WINDOWS);
+        maxs = grow(maxs, capacity * WINDOWS);
+        Arrays.fill(mins, from * WINDOWS, mins.length, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, from * WINDOWS, maxs.length, Double.NEGATIVE_INFINITY);
+        latestSeconds = grow(latestSeconds, capacity);
+        latestNanos = latestNanos == null ? new int[capacity] : Arrays.copyOf(latestNanos, capacity);
+        latestConditions = latestConditions == null ? new int[capacity] : Arrays.copyOf(latestConditions, capacity);
+        latestTemperatures = grow(latestTemperatures, capacity);
+        Arrays.fill(latestSeconds, from, capacity, Long.MIN_VALUE);
+        stations = capacity;
+    }
+
+    private static long[] grow(long[] values, int length) {
+        return values == null ? new long[length] : Arrays.copyOf(values, length);
+    }
+
+    private static double[] grow(double[] values, int length) {
+        return values == null ? new double[length] : Arrays.copyOf(values, length);
+    }
+}
@@ -0,0 +1,139 @@
+package svs.weatherapp.analytics;
+
+import lombok.Getter;
+import svs.weatherapp.model.WeatherCondition;
+
+@Getter
+public class RollupBucket {
+    private final long day;
+    private final int cityCode;
+
+    // Versions of the first and the latest reading applied to this bucket, plus the newest older
+    // version that a published snapshot may still need.
+    private final long firstVersion;
+    private long version;
+    private RollupBucket previous;
+
+    private long sunnyCount;
+    private long rainyCount;
+    private long cloudyCount;
+    private long temperatureCount;
+    private double temperatureSum;
+    private double cloudyTemperatureSum;
+    private final TemperatureHistogram.Counts temperatureBins;
+
+    private long hottestSecond;
+    private int hottestNano;
+    private int hottestCondition;
+    private double hottestTemperature;
+
+    private long coldestSecond;
+    private int coldestNano;
+    private int coldestCondition;
+    private double coldestTemperature;
+
+    private long firstCloudySecond;
+    private int firstCloudyNano;
+    private double firstCloudyTemperature;
+
+    public RollupBucket(long day, int cityCode, long version) {
+        this.day = day;
+        this.cityCode = cityCode;
+        this.firstVersion = version;
+        this.version = version;
+        this.previous = null;
+        this.temperatureBins = new TemperatureHistogram.Counts();
+    }
+
+    private RollupBucket(RollupBucket other, long version) {
+        this.day = other.day;
+        this.cityCode = other.cityCode;
+        this.firstVersion = other.firstVersion;
+        this.version = version;
+        this.previous = other;
+        this.sunnyCount = other.sunnyCount;
+        this.rainyCount = other.rainyCount;
+        this.cloudyCount = other.cloudyCount;
+        this.temperatureCount = other.temperatureCount;
+        this.temperatureSum = other.temperatureSum;
+        this.cloudyTemperatureSum = other.cloudyTemperatureSum;
+        this.temperatureBins = new TemperatureHistogram.Counts(other.temperatureBins);
+        this.hottestSecond = other.hottestSecond;
+        this.hottestNano = other.hottestNano;
+        this.hottestCondition = other.hottestCondition;
+        this.hottestTemperature = other.hottestTemperature;
+        this.coldestSecond = other.coldestSecond;
+        this.coldestNano = other.coldestNano;
+        this.coldestCondition = other.coldestCondition;
+        this.coldestTemperature = other.coldestTemperature;
+        this.firstCloudySecond = other.firstCloudySecond;
+        this.firstCloudyNano = other.firstCloudyNano;
+        this.firstCloudyTemperature = other.firstCloudyTemperature;
+    }
+
+    // Copy that takes the readings from the given version on, for when this bucket is already visible in a
+    // published snapshot and must not change any more.
+    public RollupBucket next(long version) {
+        return new RollupBucket(this, version);
+    }
+
+    // Unlinks the versions older than the one a snapshot at the given version sees, since no reader can reach
+    // them any more. Returns how many were unlinked.
+    public int trim(long oldestSnapshotVersion) {
+        RollupBucket bucket = this;
+        while (bucket.version > oldestSnapshotVersion && bucket.previous != null) {
+            bucket = bucket.previous;
+        }
+        int unlinked = 0;
+        for (RollupBucket older = bucket.previous; older != null; older = older.previous) {
+            unlinked++;
+        }
+        bucket.previous = null;
+        return unlinked;
+    }
+
+    public RollupBucket visibleAt(long snapshotVersion) {
+        RollupBucket bucket = this;
+        while (bucket != null && bucket.version > snapshotVersion) {
+            bucket = bucket.previous;
+        }
+        return bucket;
+    }
+
+    public void add(long epochSecond, int nano, int conditionCode, double temperature, long version) {
+        boolean first = temperatureCount == 0;
+        this.version = version;
+        temperatureCount++;
+        temperatureSum += temperature;
+        temperatureBins.add(temperature);
+
+        if (conditionCode == WeatherCondition.SUNNY.ordinal()) {
+            sunnyCount++;
+        } else if (conditionCode == WeatherCondition.RAINY.ordinal()) {
+            rainyCount++;
+        } else if (conditionCode == WeatherCondition.CLOUDY.ordinal()) {
+            if (cloudyCount == 0 || WeatherStore.compare(epochSecond, nano, firstCloudySecond, firstCloudyNano) < 0) {
+                firstCloudySecond = epochSecond;
+                firstCloudyNano = nano;
+                firstCloudyTemperature = temperature;
+            }
+            cloudyCount++;
+            cloudyTemperatureSum += temperature;
+        }
+
+        if (first || temperature > hottestTemperature || (temperature == hottestTemperature
+                && WeatherStore.compare(epochSecond, nano, hottestSecond, hottestNano) < 0)) {
+            hottestSecond = epochSecond;
+            hottestNano = nano;
+            hottestCondition = conditionCode;
+            hottestTemperature = temperature;
+        }
+        if (first || temperature < coldestTemperature || (temperature == coldestTemperature
+                && WeatherStore.compare(epochSecond, nano, coldestSecond, coldestNano) < 0)) {
+            coldestSecond = epochSecond;
+            coldestNano = nano;
+            coldestCondition = conditionCode;
+            coldestTemperature = temperature;
+        }
+    }
+}
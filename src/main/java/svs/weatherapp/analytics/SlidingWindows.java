@@ -0,0 +1,192 @@
+package svs.weatherapp.analytics;
+
+import svs.weatherapp.model.WeatherCondition;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+// Last 5 minutes / hour / 24 hours per station as rings of fixed-width buckets. A slot remembers which bucket it
+// holds, so stale slots are recognised and reset when a newer bucket lands on them, and readers skip slots that
+// fell out of the window. Updates touch one slot per window and reads walk a fixed number of slots per station,
+// whatever the history size. Stations get their rings on their first reading. Readers retry optimistic reads a
+// few times and only take the read lock, which holds off the ingest writer, when every attempt overlapped a write.
+public class SlidingWindows {
+    public static final String[] NAMES = {"5m", "1h", "24h"};
+    private static final long[] WINDOW_SECONDS = {300, 3_600, 86_400};
+    private static final long[] BUCKET_SECONDS = {30, 300, 3_600};
+    private static final int[] SLOTS = new int[NAMES.length];
+    private static final int[] FIRST_SLOTS = new int[NAMES.length];
+    private static final int TOTAL_SLOTS;
+    private static final int OPTIMISTIC_ATTEMPTS = 4;
+    private static final int SUNNY = WeatherCondition.SUNNY.ordinal();
+    private static final int RAINY = WeatherCondition.RAINY.ordinal();
+    private static final int CLOUDY = WeatherCondition.CLOUDY.ordinal();
+
+    static {
+        int total = 0;
+        for (int window = 0; window < NAMES.length; window++) {
+            SLOTS[window] = (int) (WINDOW_SECONDS[window] / BUCKET_SECONDS[window]);
+            FIRST_SLOTS[window] = total;
+            total += SLOTS[window];
+        }
+        TOTAL_SLOTS = total;
+    }
+
+    private Station[] stations = new Station[16];
+    private long latestSecond = Long.MIN_VALUE;
+
+    private final StampedLock lock = new StampedLock();
+
+    // Callers must serialize writes.
+    public void add(long epochSecond, int nano, int stationId, int conditionCode, double temperature) {
+        long stamp = lock.writeLock();
+        try {
+            latestSecond = Math.max(latestSecond, epochSecond);
+            if (stationId >= stations.length) {
+                stations = Arrays.copyOf(stations, Math.max(stationId + 1, stations.length * 2));
+            }
+            Station station = stations[stationId];
+            if (station == null) {
+                station = new Station();
+                stations[stationId] = station;
+            }
+            station.add(epochSecond, nano, conditionCode, temperature, latestSecond);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public long latestSecond() {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            long latest = latestSecond;
+            if (stamp != 0 && lock.validate(stamp)) {
+                return latest;
+            }
+            Thread.onSpinWait();
+        }
+        long stamp = lock.readLock();
+        try {
+            return latestSecond;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Adds every bucket inside the windows ending at the reference second.
+    public void accumulate(long referenceSecond, RecentAccumulator accumulator) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                RecentAccumulator local = new RecentAccumulator();
+                read(referenceSecond, local);
+                if (lock.validate(stamp)) {
+                    accumulator.merge(local);
+                    return;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        long stamp = lock.readLock();
+        try {
+            read(referenceSecond, accumulator);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void read(long referenceSecond, RecentAccumulator accumulator) {
+        Station[] current = stations;
+        for (int stationId = 0; stationId < current.length; stationId++) {
+            Station station = current[stationId];
+            if (station != null) {
+                station.read(stationId, referenceSecond, accumulator);
+            }
+        }
+    }
+
+    // Slots of all windows side by side; window w owns SLOTS[w] slots from FIRST_SLOTS[w].
+    private static final class Station {
+        private long latestSecond = Long.MIN_VALUE;
+        private int latestNano;
+        private int latestCondition;
+        private double latestTemperature;
+
+        private final long[] buckets = new long[TOTAL_SLOTS];
+        private final int[] counts = new int[TOTAL_SLOTS];
+        private final int[] sunnyCounts = new int[TOTAL_SLOTS];
+        private final int[] rainyCounts = new int[TOTAL_SLOTS];
+        private final int[] cloudyCounts = new int[TOTAL_SLOTS];
+        private final double[] sums = new double[TOTAL_SLOTS];
+        private final double[] mins = new double[TOTAL_SLOTS];
+        private final double[] maxs = new double[TOTAL_SLOTS];
+
+        private Station() {
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+
+        private void add(long epochSecond, int nano, int conditionCode, double temperature, long newestSecond) {
+            if (latestSecond == Long.MIN_VALUE || WeatherStore.compare(epochSecond, nano, latestSecond,
+                    latestNano) >= 0) {
+                latestSecond = epochSecond;
+                latestNano = nano;
+                latestCondition = conditionCode;
+                latestTemperature = temperature;
+            }
+            for (int window = 0; window < NAMES.length; window++) {
+                add(window, epochSecond, conditionCode, temperature, newestSecond);
+            }
+        }
+
+        private void add(int window, long epochSecond, int conditionCode, double temperature, long newestSecond) {
+            long bucketSeconds = BUCKET_SECONDS[window];
+            int slots = SLOTS[window];
+            long bucket = Math.floorDiv(epochSecond, bucketSeconds);
+            if (bucket <= Math.floorDiv(newestSecond, bucketSeconds) - slots) {
+                return;
+            }
+            int slot = FIRST_SLOTS[window] + (int) Math.floorMod(bucket, (long) slots);
+            if (buckets[slot] != bucket) {
+                if (buckets[slot] > bucket) {
+                    return;
+                }
+                buckets[slot] = bucket;
+                counts[slot] = 0;
+                sunnyCounts[slot] = 0;
+                rainyCounts[slot] = 0;
+                cloudyCounts[slot] = 0;
+                sums[slot] = 0;
+                mins[slot] = temperature;
+                maxs[slot] = temperature;
+            }
+            counts[slot]++;
+            sums[slot] += temperature;
+            mins[slot] = Math.min(mins[slot], temperature);
+            maxs[slot] = Math.max(maxs[slot], temperature);
+            if (conditionCode == SUNNY) {
+                sunnyCounts[slot]++;
+            } else if (conditionCode == RAINY) {
+                rainyCounts[slot]++;
+            } else if (conditionCode == CLOUDY) {
+                cloudyCounts[slot]++;
+            }
+        }
+
+        private void read(int stationId, long referenceSecond, RecentAccumulator accumulator) {
+            if (latestSecond != Long.MIN_VALUE) {
+                accumulator.latest(stationId, latestSecond, latestNano, latestCondition, latestTemperature);
+            }
+            for (int window = 0; window < NAMES.length; window++) {
+                long last = Math.floorDiv(referenceSecond, BUCKET_SECONDS[window]);
+                long first = last - SLOTS[window] + 1;
+                for (int slot = FIRST_SLOTS[window]; slot < FIRST_SLOTS[window] + SLOTS[window]; slot++) {
+                    long bucket = buckets[slot];
+                    if (bucket >= first && bucket <= last) {
+                        accumulator.add(window, stationId, counts[slot], sunnyCounts[slot], rainyCounts[slot],
+                                cloudyCounts[slot], sums[slot], mins[slot], maxs[slot]);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package svs.weatherapp.analytics;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+// Published per-station stats. The table is split into pages, so a new snapshot copies only the pages holding
+// stations that changed since the previous one and shares the rest.
+public final class StationStatsTable {
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    public static final StationStatsTable EMPTY = new StationStatsTable(new CityStats[0][], 0);
+
+    private final CityStats[][] pages;
+    private final int size;
+
+    private StationStatsTable(CityStats[][] pages, int size) {
+        this.pages = pages;
+        this.size = size;
+    }
+
+    // Number of station ids covered; stations past it have no readings.
+    public int size() {
+        return size;
+    }
+
+    public CityStats get(int station) {
+        if (station < 0 || station >= size) {
+            return CityStats.EMPTY;
+        }
+        CityStats[] page = pages[station >> PAGE_BITS];
+        CityStats stats = page == null ? null : page[station & PAGE_MASK];
+        return stats == null ? CityStats.EMPTY : stats;
+    }
+
+    // Stations must be sorted, so each touched page is copied once.
+    public StationStatsTable with(int[] stations, IntFunction<CityStats> stats) {
+        if (stations.length == 0) {
+            return this;
+        }
+        int nextSize = Math.max(size, stations[stations.length - 1] + 1);
+        CityStats[][] next = Arrays.copyOf(pages, ((nextSize - 1) >> PAGE_BITS) + 1);
+        int copiedPage = -1;
+        for (int station : stations) {
+            int page = station >> PAGE_BITS;
+            if (page != copiedPage) {
+                next[page] = next[page] == null ? new CityStats[PAGE_SIZE] : next[page].clone();
+                copiedPage = page;
+            }
+            next[page][station & PAGE_MASK] = stats.apply(station);
+        }
+        return new StationStatsTable(next, nextSize);
+    }
+
+    // Visits only the stations that have stats, skipping pages no station in them ever filled.
+    public void forEach(ObjIntConsumer<CityStats> action) {
+        for (int page = 0; page < pages.length; page++) {
+            if (pages[page] == null) {
+                continue;
+            }
+            for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                if (pages[page][slot] != null) {
+                    action.accept(pages[page][slot], page << PAGE_BITS | slot);
+                }
+            }
+        }
+    }
+
+    public CityStats[] toArray() {
+        CityStats[] stats = new CityStats[size];
+        for (int station = 0; station < size; station++) {
+            stats[station] = get(station);
+        }
+        return stats;
+    }
+}
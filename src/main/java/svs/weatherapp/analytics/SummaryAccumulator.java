@@ -0,0 +1,444 @@
+package svs.weatherapp.analytics;
+
+import svs.weatherapp.dto.WeatherSummaryDto;
+import svs.weatherapp.mapper.WeatherSummaryMapper;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.station.StationRegistry;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+public class SummaryAccumulator implements ReadingConsumer {
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final StationTotals stations = new StationTotals();
+    private final long[] temperatureBins = new long[TemperatureHistogram.BINS];
+
+    private long totalMeasurements;
+    private double totalTemperature;
+    private long rowsScanned;
+    private long bucketsMerged;
+
+    private final Reading hottest = new Reading();
+    private final Reading coldest = new Reading();
+    private final CloudyDays cloudyDays = new CloudyDays();
+
+    @Override
+    public void accept(long epochSecond, int nano, int cityCode, int conditionCode, double temperature) {
+        rowsScanned++;
+        totalMeasurements++;
+        totalTemperature += temperature;
+        int slot = stations.slot(cityCode);
+        stations.temperatureCounts[slot]++;
+        stations.temperatureSums[slot] += temperature;
+        temperatureBins[TemperatureHistogram.bin(temperature)]++;
+
+        switch (CONDITIONS[conditionCode]) {
+            case SUNNY -> stations.sunnyCounts[slot]++;
+            case RAINY -> stations.rainyCounts[slot]++;
+            case CLOUDY -> {
+                stations.cloudyCounts[slot]++;
+                stations.cloudyTemperatureSums[slot] += temperature;
+                cloudyDays.add(Math.floorDiv(epochSecond, SECONDS_PER_DAY), 1,
+                        epochSecond, nano, cityCode, temperature);
+            }
+        }
+
+        if (hottest.isBeatenBy(temperature, epochSecond, nano, cityCode, true)) {
+            hottest.set(epochSecond, nano, cityCode, conditionCode, temperature);
+        }
+        if (coldest.isBeatenBy(temperature, epochSecond, nano, cityCode, false)) {
+            coldest.set(epochSecond, nano, cityCode, conditionCode, temperature);
+        }
+    }
+
+    public void merge(RollupBucket bucket) {
+        int cityCode = bucket.getCityCode();
+        bucketsMerged++;
+        totalMeasurements += bucket.getTemperatureCount();
+        totalTemperature += bucket.getTemperatureSum();
+        int slot = stations.slot(cityCode);
+        stations.temperatureCounts[slot] += bucket.getTemperatureCount();
+        stations.temperatureSums[slot] += bucket.getTemperatureSum();
+        bucket.getTemperatureBins().addTo(temperatureBins);
+        stations.sunnyCounts[slot] += bucket.getSunnyCount();
+        stations.rainyCounts[slot] += bucket.getRainyCount();
+
+        if (bucket.getCloudyCount() > 0) {
+            stations.cloudyCounts[slot] += bucket.getCloudyCount();
+            stations.cloudyTemperatureSums[slot] += bucket.getCloudyTemperatureSum();
+            cloudyDays.add(bucket.getDay(), bucket.getCloudyCount(), bucket.getFirstCloudySecond(),
+                    bucket.getFirstCloudyNano(), cityCode, bucket.getFirstCloudyTemperature());
+        }
+
+        if (bucket.getTemperatureCount() == 0) {
+            return;
+        }
+        if (hottest.isBeatenBy(bucket.getHottestTemperature(), bucket.getHottestSecond(), bucket.getHottestNano(),
+                cityCode, true)) {
+            hottest.set(bucket.getHottestSecond(), bucket.getHottestNano(), cityCode, bucket.getHottestCondition(),
+                    bucket.getHottestTemperature());
+        }
+        if (coldest.isBeatenBy(bucket.getColdestTemperature(), bucket.getColdestSecond(), bucket.getColdestNano(),
+                cityCode, false)) {
+            coldest.set(bucket.getColdestSecond(), bucket.getColdestNano(), cityCode, bucket.getColdestCondition(),
+                    bucket.getColdestTemperature());
+        }
+    }
+
+    // Adds another accumulator's readings; scan counters are left alone since they describe this query's work.
+    public void merge(SummaryAccumulator other) {
+        totalMeasurements += other.totalMeasurements;
+        totalTemperature += other.totalTemperature;
+        stations.merge(other.stations);
+        for (int bin = 0; bin < temperatureBins.length; bin++) {
+            temperatureBins[bin] += other.temperatureBins[bin];
+        }
+        hottest.merge(other.hottest, true);
+        coldest.merge(other.coldest, false);
+        cloudyDays.merge(other.cloudyDays);
+    }
+
+    public void addScanned(SummaryAccumulator other) {
+        rowsScanned += other.rowsScanned;
+        bucketsMerged += other.bucketsMerged;
+    }
+
+    public long getTotalMeasurements() {
+        return totalMeasurements;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public long getBucketsMerged() {
+        return bucketsMerged;
+    }
+
+    public String getCities() {
+        int[] ids = stations.withReadings();
+        Arrays.sort(ids);
+        StringJoiner cities = new StringJoiner(",");
+        for (int id : ids) {
+            cities.add(StationRegistry.global().name(id));
+        }
+        return cities.toString();
+    }
+
+    public WeatherSummaryDto toWeatherSummaryDto() {
+        return WeatherSummaryMapper.toWeatherSummaryDto(
+                stations.withMaxCount(stations.rainyCounts), stations.withMaxCount(stations.sunnyCounts),
+                stations.withMaxCount(stations.cloudyCounts),
+                hottest.toWeather(), coldest.toWeather(), cloudyDays.cloudiestWeather(),
+                stations.withExtremeAverage(stations.temperatureSums, stations.temperatureCounts, false),
+                stations.withExtremeAverage(stations.temperatureSums, stations.temperatureCounts, true),
+                stations.withExtremeAverage(stations.cloudyTemperatureSums, stations.cloudyCounts, false),
+                totalMeasurements,
+                totalMeasurements > 0 ? totalTemperature / totalMeasurements : 0.0,
+                sum(stations.rainyCounts), sum(stations.sunnyCounts), sum(stations.cloudyCounts),
+                temperaturePercentile(50), temperaturePercentile(90), temperaturePercentile(99)
+        );
+    }
+
+    private double temperaturePercentile(double percentile) {
+        return TemperatureHistogram.percentile(temperatureBins, totalMeasurements, percentile, coldest.temperature,
+                hottest.temperature);
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static Weather toWeather(long epochSecond, int nano, int cityCode, int conditionCode, double temperature) {
+        return WeatherStore.toWeather(epochSecond, nano, cityCode, conditionCode, temperature);
+    }
+
+    private static int compareReadings(long second, int nano, int cityCode, long otherSecond, int otherNano,
+                                       int otherCityCode) {
+        int byTime = WeatherStore.compare(second, nano, otherSecond, otherNano);
+        return byTime != 0 ? byTime : Integer.compare(cityCode, otherCityCode);
+    }
+
+    private static final class Reading {
+        private boolean present;
+        private long epochSecond;
+        private int nano;
+        private int cityCode;
+        private int conditionCode;
+        private double temperature;
+
+        private boolean isBeatenBy(double candidate, long candidateSecond, int candidateNano, int candidateCity,
+                                   boolean max) {
+            if (!present) {
+                return true;
+            }
+            if (candidate != temperature) {
+                return max ? candidate > temperature : candidate < temperature;
+            }
+            return compareReadings(candidateSecond, candidateNano, candidateCity, epochSecond, nano, cityCode) < 0;
+        }
+
+        private void set(long epochSecond, int nano, int cityCode, int conditionCode, double temperature) {
+            this.present = true;
+            this.epochSecond = epochSecond;
+            this.nano = nano;
+            this.cityCode = cityCode;
+            this.conditionCode = conditionCode;
+            this.temperature = temperature;
+        }
+
+        private void merge(Reading other, boolean max) {
+            if (other.present && isBeatenBy(other.temperature, other.epochSecond, other.nano, other.cityCode, max)) {
+                set(other.epochSecond, other.nano, other.cityCode, other.conditionCode, other.temperature);
+            }
+        }
+
+        private Weather toWeather() {
+            return present ? SummaryAccumulator.toWeather(epochSecond, nano, cityCode, conditionCode, temperature) : null;
+        }
+    }
+
+    // Per-station totals in an open-addressing table, so a query pays for the stations it meets rather than for
+    // every registered one. Ties between stations go to the lower id.
+    private static final class StationTotals {
+        private static final int EMPTY = -1;
+
+        private int[] ids = newIds(16);
+        private long[] sunnyCounts = new long[16];
+        private long[] rainyCounts = new long[16];
+        private long[] cloudyCounts = new long[16];
+        private long[] temperatureCounts = new long[16];
+        private double[] temperatureSums = new double[16];
+        private double[] cloudyTemperatureSums = new double[16];
+        private int size;
+
+        private int slot(int id) {
+            int slot = find(ids, id);
+            if (ids[slot] == EMPTY) {
+                if ((size + 1) * 2 > ids.length) {
+                    resize();
+                    slot = find(ids, id);
+                }
+                ids[slot] = id;
+                size++;
+            }
+            return slot;
+        }
+
+        private void merge(StationTotals other) {
+            for (int otherSlot = 0; otherSlot < other.ids.length; otherSlot++) {
+                if (other.ids[otherSlot] == EMPTY) {
+                    continue;
+                }
+                int slot = slot(other.ids[otherSlot]);
+                sunnyCounts[slot] += other.sunnyCounts[otherSlot];
+                rainyCounts[slot] += other.rainyCounts[otherSlot];
+                cloudyCounts[slot] += other.cloudyCounts[otherSlot];
+                temperatureCounts[slot] += other.temperatureCounts[otherSlot];
+                temperatureSums[slot] += other.temperatureSums[otherSlot];
+                cloudyTemperatureSums[slot] += other.cloudyTemperatureSums[otherSlot];
+            }
+        }
+
+        private int[] withReadings() {
+            int[] result = new int[size];
+            int count = 0;
+            for (int slot = 0; slot < ids.length; slot++) {
+                if (ids[slot] != EMPTY && temperatureCounts[slot] > 0) {
+                    result[count++] = ids[slot];
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private String withMaxCount(long[] counts) {
+            int best = -1;
+            for (int slot = 0; slot < ids.length; slot++) {
+                if (ids[slot] == EMPTY || counts[slot] == 0) {
+                    continue;
+                }
+                if (best < 0 || counts[slot] > counts[best]
+                        || (counts[slot] == counts[best] && ids[slot] < ids[best])) {
+                    best = slot;
+                }
+            }
+            return best < 0 ? null : StationRegistry.global().name(ids[best]);
+        }
+
+        private String withExtremeAverage(double[] sums, long[] counts, boolean max) {
+            int best = -1;
+            double bestAverage = 0;
+            for (int slot = 0; slot < ids.length; slot++) {
+                if (ids[slot] == EMPTY || counts[slot] == 0) {
+                    continue;
+                }
+                double average = sums[slot] / counts[slot];
+                if (best < 0 || (max ? average > bestAverage : average < bestAverage)
+                        || (average == bestAverage && ids[slot] < ids[best])) {
+                    best = slot;
+                    bestAverage = average;
+                }
+            }
+            return best < 0 ? null : StationRegistry.global().name(ids[best]);
+        }
+
+        private void resize() {
+            int[] oldIds = ids;
+            long[] oldSunny = sunnyCounts;
+            long[] oldRainy = rainyCounts;
+            long[] oldCloudy = cloudyCounts;
+            long[] oldCounts = temperatureCounts;
+            double[] oldSums = temperatureSums;
+            double[] oldCloudySums = cloudyTemperatureSums;
+            int capacity = oldIds.length * 2;
+            ids = newIds(capacity);
+            sunnyCounts = new long[capacity];
+            rainyCounts = new long[capacity];
+            cloudyCounts = new long[capacity];
+            temperatureCounts = new long[capacity];
+            temperatureSums = new double[capacity];
+            cloudyTemperatureSums = new double[capacity];
+            for (int old = 0; old < oldIds.length; old++) {
+                if (oldIds[old] == EMPTY) {
+                    continue;
+                }
+                int slot = find(ids, oldIds[old]);
+                ids[slot] = oldIds[old];
+                sunnyCounts[slot] = oldSunny[old];
+                rainyCounts[slot] = oldRainy[old];
+                cloudyCounts[slot] = oldCloudy[old];
+                temperatureCounts[slot] = oldCounts[old];
+                temperatureSums[slot] = oldSums[old];
+                cloudyTemperatureSums[slot] = oldCloudySums[old];
+            }
+        }
+
+        private static int find(int[] ids, int id) {
+            int mask = ids.length - 1;
+            int hash = id * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (ids[slot] != EMPTY && ids[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int[] newIds(int capacity) {
+            int[] ids = new int[capacity];
+            Arrays.fill(ids, EMPTY);
+            return ids;
+        }
+    }
+
+    private static final class CloudyDays {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] days = newDays(16);
+        private long[] counts = new long[16];
+        private long[] firstSeconds = new long[16];
+        private int[] firstNanos = new int[16];
+        private int[] firstCities = new int[16];
+        private double[] firstTemperatures = new double[16];
+        private int size;
+
+        private void add(long day, long count, long epochSecond, int nano, int cityCode, double temperature) {
+            int slot = slot(days, day);
+            if (days[slot] == EMPTY) {
+                if ((size + 1) * 2 > days.length) {
+                    resize();
+                    slot = slot(days, day);
+                }
+                days[slot] = day;
+                counts[slot] = count;
+                setFirst(slot, epochSecond, nano, cityCode, temperature);
+                size++;
+                return;
+            }
+            counts[slot] += count;
+            if (compareReadings(epochSecond, nano, cityCode, firstSeconds[slot], firstNanos[slot],
+                    firstCities[slot]) < 0) {
+                setFirst(slot, epochSecond, nano, cityCode, temperature);
+            }
+        }
+
+        private void merge(CloudyDays other) {
+            for (int slot = 0; slot < other.days.length; slot++) {
+                if (other.days[slot] != EMPTY) {
+                    add(other.days[slot], other.counts[slot], other.firstSeconds[slot], other.firstNanos[slot],
+                            other.firstCities[slot], other.firstTemperatures[slot]);
+                }
+            }
+        }
+
+        private Weather cloudiestWeather() {
+            int best = -1;
+            for (int slot = 0; slot < days.length; slot++) {
+                if (days[slot] == EMPTY) {
+                    continue;
+                }
+                if (best < 0 || counts[slot] > counts[best] || (counts[slot] == counts[best] && days[slot] < days[best])) {
+                    best = slot;
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            return toWeather(firstSeconds[best], firstNanos[best], firstCities[best],
+                    WeatherCondition.CLOUDY.ordinal(), firstTemperatures[best]);
+        }
+
+        private void setFirst(int slot, long epochSecond, int nano, int cityCode, double temperature) {
+            firstSeconds[slot] = epochSecond;
+            firstNanos[slot] = nano;
+            firstCities[slot] = cityCode;
+            firstTemperatures[slot] = temperature;
+        }
+
+        private void resize() {
+            long[] oldDays = days;
+            long[] oldCounts = counts;
+            long[] oldSeconds = firstSeconds;
+            int[] oldNanos = firstNanos;
+            int[] oldCities = firstCities;
+            double[] oldTemperatures = firstTemperatures;
+            int capacity = oldDays.length * 2;
+            days = newDays(capacity);
+            counts = new long[capacity];
+            firstSeconds = new long[capacity];
+            firstNanos = new int[capacity];
+            firstCities = new int[capacity];
+            firstTemperatures = new double[capacity];
+            for (int old = 0; old < oldDays.length; old++) {
+                if (oldDays[old] == EMPTY) {
+                    continue;
+                }
+                int slot = slot(days, oldDays[old]);
+                days[slot] = oldDays[old];
+                counts[slot] = oldCounts[old];
+                setFirst(slot, oldSeconds[old], oldNanos[old], oldCities[old], oldTemperatures[old]);
+            }
+        }
+
+        private static int slot(long[] days, long day) {
+            int mask = days.length - 1;
+            int slot = Long.hashCode(day * 0x9E3779B97F4A7C15L) & mask;
+            while (days[slot] != EMPTY && days[slot] != day) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static long[] newDays(int capacity) {
+            long[] days = new long[capacity];
+            Arrays.fill(days, EMPTY);
+            return days;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package svs.weatherapp.analytics;
+
+import java.util.Arrays;
+
+// Fixed-bin temperature histogram: 0.5°C bins from -100°C to +100°C, with readings outside the range counted in the
+// edge bins. Instances are immutable and split into blocks, so adding a reading copies only the block it lands in
+// and the block directory; merging and percentiles cost the same however many readings were added.
+public final class TemperatureHistogram {
+    public static final double BIN_WIDTH = 0.5;
+    public static final double MIN_TEMPERATURE = -100.0;
+    public static final int BINS = 400;
+
+    private static final int BLOCK_BITS = 4;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final int BLOCKS = BINS / BLOCK_SIZE;
+
+    public static final TemperatureHistogram EMPTY = new TemperatureHistogram(new long[BLOCKS][], 0);
+
+    private final long[][] blocks;
+    private final long count;
+
+    private TemperatureHistogram(long[][] blocks, long count) {
+        this.blocks = blocks;
+        this.count = count;
+    }
+
+    public static TemperatureHistogram of(long[] bins) {
+        long[][] blocks = new long[BLOCKS][];
+        long count = 0;
+        for (int block = 0; block < blocks.length; block++) {
+            int from = block << BLOCK_BITS;
+            long blockCount = 0;
+            for (int bin = from; bin < from + BLOCK_SIZE; bin++) {
+                blockCount += bins[bin];
+            }
+            if (blockCount != 0) {
+                blocks[block] = Arrays.copyOfRange(bins, from, from + BLOCK_SIZE);
+                count += blockCount;
+            }
+        }
+        return count == 0 ? EMPTY : new TemperatureHistogram(blocks, count);
+    }
+
+    public static int bin(double temperature) {
+        int bin = (int) Math.floor((temperature - MIN_TEMPERATURE) / BIN_WIDTH);
+        return Math.max(0, Math.min(BINS - 1, bin));
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long count(int bin) {
+        long[] block = blocks[bin >> BLOCK_BITS];
+        return block == null ? 0 : block[bin & BLOCK_MASK];
+    }
+
+    public TemperatureHistogram with(double temperature) {
+        int bin = bin(temperature);
+        long[][] next = blocks.clone();
+        long[] block = blocks[bin >> BLOCK_BITS];
+        block = block == null ? new long[BLOCK_SIZE] : block.clone();
+        block[bin & BLOCK_MASK]++;
+        next[bin >> BLOCK_BITS] = block;
+        return new TemperatureHistogram(next, count + 1);
+    }
+
+    public TemperatureHistogram merge(TemperatureHistogram other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            return other;
+        }
+        long[][] next = blocks.clone();
+        for (int block = 0; block < next.length; block++) {
+            long[] otherBlock = other.blocks[block];
+            if (otherBlock == null) {
+                continue;
+            }
+            if (next[block] == null) {
+                next[block] = otherBlock;
+                continue;
+            }
+            long[] merged = next[block].clone();
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                merged[i] += otherBlock[i];
+            }
+            next[block] = merged;
+        }
+        return new TemperatureHistogram(next, count + other.count);
+    }
+
+    public void addTo(long[] bins) {
+        for (int block = 0; block < blocks.length; block++) {
+            long[] counts = blocks[block];
+            if (counts == null) {
+                continue;
+            }
+            int from = block << BLOCK_BITS;
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                bins[from + i] += counts[i];
+            }
+        }
+    }
+
+    public double percentile(double percentile, double min, double max) {
+        long[] bins = new long[BINS];
+        addTo(bins);
+        return percentile(bins, count, percentile, min, max);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TemperatureHistogram other) || count != other.count) {
+            return false;
+        }
+        for (int bin = 0; bin < BINS; bin++) {
+            if (count(bin) != other.count(bin)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        long[] bins = new long[BINS];
+        addTo(bins);
+        return Arrays.hashCode(bins);
+    }
+
+    // Mutable counterpart for per-station accumulators and rollup buckets: blocks are allocated as readings reach
+    // them, so a station only pays for the temperature range it actually reports. A copy shares the blocks of its
+    // source and clones each one the first time it writes to it; the source must not change after being copied.
+    public static final class Counts {
+        private final long[][] blocks;
+        // Bit per block: set once this instance holds its own copy of the block.
+        private int owned;
+
+        public Counts() {
+            blocks = new long[BLOCKS][];
+        }
+
+        public Counts(Counts source) {
+            blocks = source.blocks.clone();
+        }
+
+        public void add(double temperature) {
+            int bin = bin(temperature);
+            block(bin >> BLOCK_BITS)[bin & BLOCK_MASK]++;
+        }
+
+        public void add(TemperatureHistogram histogram) {
+            for (int block = 0; block < BLOCKS; block++) {
+                long[] counts = histogram.blocks[block];
+                if (counts == null) {
+                    continue;
+                }
+                long[] target = block(block);
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    target[i] += counts[i];
+                }
+            }
+        }
+
+        public void addTo(long[] bins) {
+            for (int block = 0; block < BLOCKS; block++) {
+                long[] counts = blocks[block];
+                if (counts == null) {
+                    continue;
+                }
+                int from = block << BLOCK_BITS;
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    bins[from + i] += counts[i];
+                }
+            }
+        }
+
+        private long[] block(int block) {
+            if ((owned & 1 << block) == 0) {
+                blocks[block] = blocks[block] == null ? new long[BLOCK_SIZE] : blocks[block].clone();
+                owned |= 1 << block;
+            }
+            return blocks[block];
+        }
+
+        public TemperatureHistogram toHistogram() {
+            long[][] copy = new long[BLOCKS][];
+            long count = 0;
+            for (int block = 0; block < BLOCKS; block++) {
+                if (blocks[block] != null) {
+                    copy[block] = blocks[block].clone();
+                    for (long binCount : copy[block]) {
+                        count += binCount;
+                    }
+                }
+            }
+            return count == 0 ? EMPTY : new TemperatureHistogram(copy, count);
+        }
+    }
+
+    // Midpoint of the bin holding the requested rank, kept inside the exact min and max so the edge bins and
+    // single-reading histograms do not report a temperature that was never seen.
+    public static double percentile(long[] bins, long count, double percentile, double min, double max) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        int bin = 0;
+        for (; bin < BINS - 1; bin++) {
+            seen += bins[bin];
+            if (seen >= rank) {
+                break;
+            }
+        }
+        double midpoint = MIN_TEMPERATURE + (bin + 0.5) * BIN_WIDTH;
+        return Math.max(min, Math.min(max, midpoint));
+    }
+}
@@ -1,16 +1,36 @@
 package svs.weatherapp.analytics;
 
+import svs.weatherapp.dto.RecentWeatherDto;
 import svs.weatherapp.dto.WeatherAnalyticsDto;
 import svs.weatherapp.dto.WeatherSummaryDto;
 import svs.weatherapp.model.Weather;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface WeatherAnalyticsService {
     void processWeather(Weather weather);
 
+    void processWeather(List<Weather> weathers);
+
+    void processWeather(int partition, List<Weather> weathers);
+
+    void processWeather(int partition, List<Weather> weathers, long lastOffset);
+
+    long lastAppliedOffset(int partition);
+
+    void assignPartitions(Collection<Integer> partitions);
+
+    void releasePartitions(Collection<Integer> partitions);
+
     List<WeatherAnalyticsDto> getCityStats();
 
+    long getDataVersion();
+
     WeatherSummaryDto getSummaryForPeriod(LocalDateTime start, LocalDateTime end);
+
+    WeatherSummaryDto getSummaryForPeriod(LocalDateTime start, LocalDateTime end, int top);
+
+    List<RecentWeatherDto> getRecentStats();
 }
\ No newline at end of file
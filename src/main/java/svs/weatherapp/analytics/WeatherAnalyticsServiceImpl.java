@@ -1,184 +1,397 @@
 package svs.weatherapp.analytics;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import svs.weatherapp.dto.RecentWeatherDto;
 import svs.weatherapp.dto.WeatherAnalyticsDto;
+import svs.weatherapp.dto.WeatherReadingDto;
 import svs.weatherapp.dto.WeatherSummaryDto;
 import svs.weatherapp.mapper.WeatherAnalyticsMapper;
 import svs.weatherapp.mapper.WeatherSummaryMapper;
+import svs.weatherapp.jfr.PeriodSummaryEvent;
+import svs.weatherapp.metrics.WeatherMetrics;
 import svs.weatherapp.model.City;
 import svs.weatherapp.model.Weather;
-import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.station.StationRegistry;
+import svs.weatherapp.storage.ShardCheckpoint;
+import svs.weatherapp.storage.WeatherCheckpointService;
+import svs.weatherapp.storage.WeatherStorageService;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 public class WeatherAnalyticsServiceImpl implements WeatherAnalyticsService {
-    private final Map<City, Integer> sunnyDays = new HashMap<>();
-    private final Map<City, Integer> rainyDays = new HashMap<>();
+    private static final City[] CITIES = City.values();
+    private static final int DEFAULT_PARTITION = 0;
+    private static final int DEFAULT_SUMMARY_CACHE_ENTRIES = 256;
+    private static final int DEFAULT_PARALLEL_MIN_DAYS = 8;
 
-    private final Map<City, Integer> cloudyDays = new HashMap<>();
+    @Value("${app.analytics.snapshot.publish-interval-ms:0}")
+    private long publishIntervalMs;
 
-    private final Map<City, DoubleSummaryStatistics> temperatureStats = new HashMap<>();
+    private final Map<Integer, AnalyticsShard> shards = new ConcurrentHashMap<>();
 
-    private final List<Weather> allWeathers = new ArrayList<>();
+    // Bumped whenever a shard is created or dropped, so cached summaries only hold for the shards they were read
+    // from.
+    private final AtomicLong shardGeneration = new AtomicLong();
 
-    @Override
-    public void processWeather(Weather weather) {
-        allWeathers.add(weather);
+    // Versions of dropped shards, plus one for each drop, so the data version still grows when a shard goes away.
+    private final AtomicLong retiredVersions = new AtomicLong();
+
+    private PeriodSummaryCache summaryCache = new PeriodSummaryCache(DEFAULT_SUMMARY_CACHE_ENTRIES);
+
+    // Periods spanning at least this many days are summarized in parallel on the summary pool.
+    @Value("${app.analytics.summary.parallel-min-days:" + DEFAULT_PARALLEL_MIN_DAYS + "}")
+    private long parallelMinDays = DEFAULT_PARALLEL_MIN_DAYS;
+
+    private ForkJoinPool summaryPool = newSummaryPool(0);
+
+    private final WeatherStorageService storageService;
+
+    private final WeatherCheckpointService checkpointService;
+
+    private final WeatherMetrics metrics;
+
+    // Today's boundary for summaries, the end of the recent windows and the ingest lag are all read from it.
+    private final Clock clock;
+
+    public WeatherAnalyticsServiceImpl() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public WeatherAnalyticsServiceImpl(Clock clock) {
+        this(null, null, new WeatherMetrics(new SimpleMeterRegistry()), clock);
+    }
+
+    @Autowired
+    public WeatherAnalyticsServiceImpl(WeatherStorageService storageService,
+                                       WeatherCheckpointService checkpointService, WeatherMetrics metrics,
+                                       Clock clock) {
+        this.storageService = storageService;
+        this.checkpointService = checkpointService;
+        this.metrics = metrics;
+        this.clock = clock;
+        metrics.registerStoreGauges(this::storedReadings, this::estimatedBytes, this::olderRollupVersions);
+    }
 
-        temperatureStats.computeIfAbsent(weather.getCity(), c -> new DoubleSummaryStatistics())
-                .accept(weather.getTemperature());
+    @Value("${app.analytics.summary-cache.max-entries:" + DEFAULT_SUMMARY_CACHE_ENTRIES + "}")
+    public void setSummaryCacheEntries(int maxEntries) {
+        summaryCache = new PeriodSummaryCache(maxEntries);
+    }
+
+    // Zero means one worker per core. The pool is separate from the common one, so wide summaries cannot starve
+    // other parallel work and are capped no matter how many requests arrive at once.
+    @Value("${app.analytics.summary.parallelism:0}")
+    public void setSummaryParallelism(int parallelism) {
+        ForkJoinPool previous = summaryPool;
+        summaryPool = newSummaryPool(parallelism);
+        previous.shutdown();
+    }
 
-        switch (weather.getCondition()) {
-            case SUNNY:
-                sunnyDays.merge(weather.getCity(), 1, Integer::sum);
-                break;
-            case RAINY:
-                rainyDays.merge(weather.getCity(), 1, Integer::sum);
-                break;
-            case CLOUDY:
-                cloudyDays.merge(weather.getCity(), 1, Integer::sum);
-                break;
-            default:
-                break;
+    @PostConstruct
+    public void restoreStoredPartitions() {
+        if (storageEnabled()) {
+            storageService.storedPartitions().forEach(this::shard);
+        }
+        if (checkpointsEnabled()) {
+            checkpointService.storedPartitions().forEach(this::shard);
         }
     }
 
     @Override
-    public List<WeatherAnalyticsDto> getCityStats() {
-        return Arrays.stream(City.values())
-                .map(city -> WeatherAnalyticsMapper.toWeatherAnalyticsDto(
-                        city,
-                        temperatureStats.get(city),
-                        sunnyDays.getOrDefault(city, 0),
-                        rainyDays.getOrDefault(city, 0),
-                        cloudyDays.getOrDefault(city, 0)
-                ))
-                .collect(Collectors.toList());
+    public void processWeather(Weather weather) {
+        processWeather(DEFAULT_PARTITION, List.of(weather));
     }
 
     @Override
-    public WeatherSummaryDto getSummaryForPeriod(LocalDateTime start, LocalDateTime end) {
-        List<Weather> periodWeathers = filterWeathersByPeriod(start, end);
+    public void processWeather(List<Weather> weathers) {
+        processWeather(DEFAULT_PARTITION, weathers);
+    }
 
-        Map<City, Long> rainyCount = countByCondition(periodWeathers, WeatherCondition.RAINY);
-        Map<City, Long> sunnyCount = countByCondition(periodWeathers, WeatherCondition.SUNNY);
-        Map<City, Long> cloudyCount = countByCondition(periodWeathers, WeatherCondition.CLOUDY);
-        Map<City, DoubleSummaryStatistics> tempStats = summarizeTemperatureByCity(periodWeathers);
+    @Override
+    public void processWeather(int partition, List<Weather> weathers) {
+        processWeather(partition, weathers, -1);
+    }
 
-        City mostRainyCity = getCityWithMaxCount(rainyCount);
-        City mostSunnyCity = getCityWithMaxCount(sunnyCount);
-        City mostCloudyCity = getCityWithMaxCount(cloudyCount);
+    @Override
+    public void processWeather(int partition, List<Weather> weathers, long lastOffset) {
+        AnalyticsShard shard = shard(partition);
+        metrics.getIngestTimer().record(() -> shard.processWeather(weathers, lastOffset, publishIntervalMs));
+        LocalDateTime ingestedAt = LocalDateTime.now(clock);
+        for (Weather weather : weathers) {
+            if (weather.getDate() != null) {
+                metrics.recordIngestLag(weather.getDate(), ingestedAt);
+            }
+        }
+    }
 
-        Weather hottestWeather = getExtremeWeather(periodWeathers, true);
-        Weather coldestWeather = getExtremeWeather(periodWeathers, false);
-        Weather cloudiestWeather = getCloudiestWeather(periodWeathers);
+    @Override
+    public long lastAppliedOffset(int partition) {
+        return shard(partition).getLastOffset();
+    }
 
-        City coldestAvgCity = getCityWithExtremeAvgTemp(tempStats, false);
-        City hottestAvgCity = getCityWithExtremeAvgTemp(tempStats, true);
-        City cloudiestAvgCity = getCloudiestAverageCity(periodWeathers);
+    @Override
+    public void assignPartitions(Collection<Integer> partitions) {
+        partitions.forEach(this::shard);
+    }
 
-        long totalMeasurements = periodWeathers.size();
-        double averageTemperature = calculateAverageTemperature(periodWeathers);
+    // A partition this instance no longer owns keeps being written by another one, so its shard is dropped rather
+    // than left to serve stale totals - but only when storage or a checkpoint can rebuild it if the partition comes
+    // back. Without either the shard is the only copy of its readings and is kept; the consumer resumes after its
+    // last applied offset on reassignment.
+    @Override
+    public void releasePartitions(Collection<Integer> partitions) {
+        if (!storageEnabled() && !checkpointsEnabled()) {
+            return;
+        }
+        for (Integer partition : partitions) {
+            AnalyticsShard shard = shards.remove(partition);
+            if (shard == null) {
+                continue;
+            }
+            shardGeneration.incrementAndGet();
+            if (checkpointsEnabled()) {
+                writeCheckpoint(shard);
+            }
+            retiredVersions.addAndGet(shard.snapshot().getVersion() + 1);
+        }
+    }
 
-        long totalRainyDays = sumValues(rainyCount);
-        long totalSunnyDays = sumValues(sunnyCount);
-        long totalCloudyDays = sumValues(cloudyCount);
+    @Scheduled(fixedDelayString = "${app.analytics.snapshot.flush-interval-ms:1000}")
+    public void publishPending() {
+        for (AnalyticsShard shard : shards.values()) {
+            shard.publishPending(false);
+        }
+    }
 
-        return WeatherSummaryMapper.toWeatherSummaryDto(
-                mostRainyCity, mostSunnyCity, mostCloudyCity,
-                hottestWeather, coldestWeather, cloudiestWeather,
-                coldestAvgCity, hottestAvgCity, cloudiestAvgCity,
-                totalMeasurements, averageTemperature,
-                totalRainyDays, totalSunnyDays, totalCloudyDays
-        );
+    @PreDestroy
+    public void close() {
+        writeCheckpoints();
+        summaryPool.shutdown();
     }
 
-    public List<Weather> filterWeathersByPeriod(LocalDateTime start, LocalDateTime end) {
-        return allWeathers.stream()
-                .filter(w -> !w.getDate().isBefore(start) && !w.getDate().isAfter(end))
-                .toList();
+    @Scheduled(fixedDelayString = "${app.checkpoint.interval-ms:10000}")
+    public void writeCheckpoints() {
+        if (!checkpointsEnabled()) {
+            return;
+        }
+        for (AnalyticsShard shard : shards.values()) {
+            writeCheckpoint(shard);
+        }
     }
 
-    public Map<City, Long> countByCondition(List<Weather> weathers, WeatherCondition condition) {
-        return weathers.stream()
-                .filter(w -> w.getCondition() == condition)
-                .collect(Collectors.groupingBy(Weather::getCity, Collectors.counting()));
+    private void writeCheckpoint(AnalyticsShard shard) {
+        ShardCheckpoint checkpoint = shard.checkpoint();
+        if (checkpoint.getOffset() >= 0) {
+            checkpointService.write(checkpoint);
+        }
     }
 
-    public Map<City, DoubleSummaryStatistics> summarizeTemperatureByCity(List<Weather> weathers) {
-        return weathers.stream()
-                .collect(Collectors.groupingBy(Weather::getCity,
-                        Collectors.summarizingDouble(Weather::getTemperature)));
+    @Override
+    public List<WeatherAnalyticsDto> getCityStats() {
+        List<StationStatsTable> tables = shards.values().stream()
+                .map(shard -> shard.snapshot().getStationStats())
+                .toList();
+        int stations = CITIES.length;
+        for (StationStatsTable table : tables) {
+            stations = Math.max(stations, table.size());
+        }
+        // The City stations are always listed; other stations only once they have a reading.
+        List<WeatherAnalyticsDto> result = new ArrayList<>(stations);
+        for (int station = 0; station < stations; station++) {
+            CityStats stats = CityStats.EMPTY;
+            for (StationStatsTable table : tables) {
+                stats = stats.merge(table.get(station));
+            }
+            if (station >= CITIES.length && stats.getTemperatureCount() == 0) {
+                continue;
+            }
+            result.add(WeatherAnalyticsMapper.toWeatherAnalyticsDto(StationRegistry.global().name(station), stats));
+        }
+        return result;
     }
 
-    public City getCityWithMaxCount(Map<City, Long> counts) {
-        return counts.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
+    // Sum of the published shard versions and of the retired ones; it only grows, since shard versions only move
+    // forward and a dropped shard retires its version plus one.
+    @Override
+    public long getDataVersion() {
+        long dataVersion = retiredVersions.get();
+        for (AnalyticsShard shard : shards.values()) {
+            dataVersion += shard.snapshot().getVersion();
+        }
+        return dataVersion;
     }
 
-    public Weather getExtremeWeather(List<Weather> weathers, boolean max) {
-        Comparator<Weather> comparator = Comparator.comparingDouble(Weather::getTemperature);
-        if (max) {
-            return weathers.stream().max(comparator).orElse(null);
+    @Override
+    public WeatherSummaryDto getSummaryForPeriod(LocalDateTime start, LocalDateTime end) {
+        PeriodSummaryEvent event = new PeriodSummaryEvent();
+        event.begin();
+        SummaryAccumulator accumulator = new SummaryAccumulator();
+        LocalDateTime today = LocalDate.now(clock).atStartOfDay();
+        if (end.isBefore(today)) {
+            accumulateClosedPeriod(start, end, accumulator);
+        } else if (start.isBefore(today)) {
+            accumulateClosedPeriod(start, today.minusNanos(1), accumulator);
+            accumulatePeriod(today, end, accumulator);
         } else {
-            return weathers.stream().min(comparator).orElse(null);
+            accumulatePeriod(start, end, accumulator);
+        }
+        metrics.getSummaryRowsScanned().record(accumulator.getRowsScanned());
+        WeatherSummaryDto summary = accumulator.toWeatherSummaryDto();
+        event.end();
+        if (event.shouldCommit()) {
+            event.start = start.toString();
+            event.end = end.toString();
+            event.cities = accumulator.getCities();
+            event.rowsScanned = accumulator.getRowsScanned();
+            event.bucketsUsed = accumulator.getBucketsMerged();
+            event.measurements = accumulator.getTotalMeasurements();
+            event.commit();
         }
+        return summary;
     }
 
-    public City getCityWithExtremeAvgTemp(Map<City, DoubleSummaryStatistics> tempStats, boolean max) {
-        Comparator<Map.Entry<City, DoubleSummaryStatistics>> comparator =
-                Comparator.comparingDouble(e -> e.getValue().getAverage());
-        if (max) {
-            return tempStats.entrySet().stream().max(comparator).map(Map.Entry::getKey).orElse(null);
-        } else {
-            return tempStats.entrySet().stream().min(comparator).map(Map.Entry::getKey).orElse(null);
+    @Override
+    public WeatherSummaryDto getSummaryForPeriod(LocalDateTime start, LocalDateTime end, int top) {
+        WeatherSummaryDto summary = getSummaryForPeriod(start, end);
+        if (top <= 0) {
+            return summary;
         }
+        return summary.toBuilder()
+                .hottestReadings(extremeReadings(start, end, top, true))
+                .coldestReadings(extremeReadings(start, end, top, false))
+                .build();
     }
 
-    public Weather getCloudiestWeather(List<Weather> weathers) {
-        Map<LocalDate, Long> cloudyCountByDate = weathers.stream()
-                .filter(w -> w.getCondition() == WeatherCondition.CLOUDY)
-                .collect(Collectors.groupingBy(w -> w.getDate().toLocalDate(), Collectors.counting()));
+    // Each shard answers from its range trees; their top lists are merged the same way, with ties going to
+    // the earlier reading.
+    private List<WeatherReadingDto> extremeReadings(LocalDateTime start, LocalDateTime end, int top,
+                                                    boolean hottest) {
+        Comparator<Weather> byTemperature = Comparator.comparingDouble(Weather::getTemperature);
+        Comparator<Weather> order = (hottest ? byTemperature.reversed() : byTemperature)
+                .thenComparing(Weather::getDate)
+                .thenComparingInt(weather -> StationRegistry.global().find(weather.stationName()));
+        return shards.values().stream()
+                .flatMap(shard -> shard.extremeReadings(start, end, top, hottest).stream())
+                .sorted(order)
+                .limit(top)
+                .map(WeatherSummaryMapper::toWeatherReadingDto)
+                .collect(Collectors.toList());
+    }
 
-        LocalDate cloudiestDate = cloudyCountByDate.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
+    // The windows end at the wall clock, or at the newest reading if one is ahead of it, so buckets expire as
+    // either advances.
+    @Override
+    public List<RecentWeatherDto> getRecentStats() {
+        long referenceSecond = WeatherStore.toEpochSecond(LocalDateTime.now(clock));
+        for (AnalyticsShard shard : shards.values()) {
+            referenceSecond = Math.max(referenceSecond, shard.latestSecond());
+        }
+        RecentAccumulator accumulator = new RecentAccumulator();
+        for (AnalyticsShard shard : shards.values()) {
+            shard.accumulateRecent(referenceSecond, accumulator);
+        }
+        return accumulator.toRecentWeatherDtos();
+    }
 
-        if (cloudiestDate == null) return null;
+    // Windows that end before today are served from the cache while no late reading lands in them. Only the whole
+    // minutes of a window, the finest rollup buckets, are cached, so windows whose bounds differ within a minute
+    // share an entry; the partial minutes at either edge are summarized on every request.
+    private void accumulateClosedPeriod(LocalDateTime start, LocalDateTime end, SummaryAccumulator accumulator) {
+        if (start.isAfter(end)) {
+            return;
+        }
+        LocalDateTime from = start.truncatedTo(ChronoUnit.MINUTES);
+        if (from.isBefore(start)) {
+            from = from.plusMinutes(1);
+        }
+        LocalDateTime to = end.plusNanos(1).truncatedTo(ChronoUnit.MINUTES);
+        if (!from.isBefore(to)) {
+            accumulatePeriod(start, end, accumulator);
+            return;
+        }
+        if (start.isBefore(from)) {
+            accumulatePeriod(start, from.minusNanos(1), accumulator);
+        }
+        LocalDateTime last = to.minusNanos(1);
+        long generation = shardGeneration.get();
+        SummaryAccumulator cached = summaryCache.get(from, last, generation, shards.values());
+        if (cached == null) {
+            cached = new SummaryAccumulator();
+            summaryCache.put(from, last, generation, cached, accumulatePeriod(from, last, cached));
+            accumulator.addScanned(cached);
+        }
+        accumulator.merge(cached);
+        if (!to.isAfter(end)) {
+            accumulatePeriod(to, end, accumulator);
+        }
+    }
 
-        return weathers.stream()
-                .filter(w -> w.getCondition() == WeatherCondition.CLOUDY)
-                .filter(w -> w.getDate().toLocalDate().equals(cloudiestDate))
-                .findFirst()
-                .orElse(null);
+    private Map<Integer, Long> accumulatePeriod(LocalDateTime start, LocalDateTime end,
+                                                SummaryAccumulator accumulator) {
+        ForkJoinPool pool = Duration.between(start, end).toDays() >= parallelMinDays ? summaryPool : null;
+        Map<Integer, Long> shardVersions = new HashMap<>();
+        for (AnalyticsShard shard : shards.values()) {
+            shardVersions.put(shard.getPartition(), shard.accumulatePeriod(start, end, accumulator, pool));
+        }
+        return shardVersions;
     }
 
-    public City getCloudiestAverageCity(List<Weather> weathers) {
-        Map<City, DoubleSummaryStatistics> cloudyTempStatsByCity = weathers.stream()
-                .filter(w -> w.getCondition() == WeatherCondition.CLOUDY)
-                .collect(Collectors.groupingBy(Weather::getCity, Collectors.summarizingDouble(Weather::getTemperature)));
+    private static ForkJoinPool newSummaryPool(int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public long storedReadings() {
+        long readings = 0;
+        for (AnalyticsShard shard : shards.values()) {
+            readings += shard.snapshot().getHistory().size();
+        }
+        return readings;
+    }
+
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (AnalyticsShard shard : shards.values()) {
+            bytes += shard.snapshot().getHistory().estimatedBytes();
+        }
+        return bytes;
+    }
+
+    public long olderRollupVersions() {
+        long versions = 0;
+        for (AnalyticsShard shard : shards.values()) {
+            versions += shard.olderRollupVersions();
+        }
+        return versions;
+    }
 
-        return cloudyTempStatsByCity.entrySet().stream()
-                .min(Comparator.comparingDouble(e -> e.getValue().getAverage()))
-                .map(Map.Entry::getKey)
-                .orElse(null);
+    private AnalyticsShard shard(int partition) {
+        return shards.computeIfAbsent(partition, p -> {
+            shardGeneration.incrementAndGet();
+            return new AnalyticsShard(p, storageEnabled() ? storageService.openPartition(p) : null,
+                    checkpointsEnabled() ? checkpointService.read(p).orElse(null) : null);
+        });
     }
 
-    public double calculateAverageTemperature(List<Weather> weathers) {
-        return weathers.stream()
-                .mapToDouble(Weather::getTemperature)
-                .average()
-                .orElse(0.0);
+    private boolean storageEnabled() {
+        return storageService != null && storageService.isEnabled();
     }
 
-    public long sumValues(Map<City, Long> counts) {
-        return counts.values().stream().mapToLong(Long::longValue).sum();
+    private boolean checkpointsEnabled() {
+        return checkpointService != null && checkpointService.isEnabled();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package svs.weatherapp.analytics;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class WeatherRollups {
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final long[] BUCKET_SECONDS = {SECONDS_PER_DAY, 3_600, 60};
+    // Wide enough for every station id the registry hands out.
+    private static final int CITY_BITS = 20;
+
+    @SuppressWarnings("unchecked")
+    private final NavigableMap<Long, RollupBucket>[] levels = new NavigableMap[BUCKET_SECONDS.length];
+
+    // Older bucket versions still linked for snapshot readers, across all levels.
+    private volatile long olderVersions;
+
+    public WeatherRollups() {
+        for (int level = 0; level < levels.length; level++) {
+            levels[level] = new ConcurrentSkipListMap<>();
+        }
+    }
+
+    public int levelCount() {
+        return BUCKET_SECONDS.length;
+    }
+
+    public long bucketSeconds(int level) {
+        return BUCKET_SECONDS[level];
+    }
+
+    // A bucket no published snapshot can see yet is updated in place. One that a snapshot already sees is frozen:
+    // the first reading after a publication replaces it with a copy linked to it, so a reader can still see the
+    // bucket as of its own snapshot. Versions older than the one the oldest live snapshot sees are unlinked at that
+    // point. Callers must serialize writes.
+    public void add(long epochSecond, int nano, int cityCode, int conditionCode, double temperature, long version,
+                    long publishedVersion, long oldestSnapshotVersion) {
+        long day = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        for (int level = 0; level < levels.length; level++) {
+            long bucket = Math.floorDiv(epochSecond, BUCKET_SECONDS[level]);
+            long key = key(bucket, cityCode);
+            RollupBucket current = levels[level].get(key);
+            if (current == null) {
+                current = new RollupBucket(day, cityCode, version);
+                levels[level].put(key, current);
+            } else if (current.getVersion() <= publishedVersion) {
+                olderVersions += 1 - current.trim(oldestSnapshotVersion);
+                current = current.next(version);
+                levels[level].put(key, current);
+            }
+            current.add(epochSecond, nano, conditionCode, temperature, version);
+        }
+    }
+
+    public long olderVersions() {
+        return olderVersions;
+    }
+
+    public int accumulate(int level, long fromBucket, long toBucket, long snapshotVersion,
+                          SummaryAccumulator accumulator, MissingBucketHandler missingBucketHandler) {
+        int merged = 0;
+        for (Map.Entry<Long, RollupBucket> entry
+                : levels[level].subMap(key(fromBucket, 0), key(toBucket, 0)).entrySet()) {
+            RollupBucket bucket = entry.getValue();
+            RollupBucket visible = bucket.visibleAt(snapshotVersion);
+            if (visible != null) {
+                accumulator.merge(visible);
+                merged++;
+            } else if (bucket.getFirstVersion() <= snapshotVersion) {
+                long fromSecond = (entry.getKey() >> CITY_BITS) * BUCKET_SECONDS[level];
+                missingBucketHandler.accumulate(bucket.getCityCode(), fromSecond, fromSecond + BUCKET_SECONDS[level]);
+            }
+        }
+        return merged;
+    }
+
+    // Version of the newest reading visible at the snapshot in any bucket between the two (inclusive). When a
+    // bucket no longer keeps the version a snapshot saw, the snapshot version itself is the safe answer.
+    public long latestVersion(int level, long fromBucket, long toBucket, long snapshotVersion) {
+        long latest = 0;
+        for (RollupBucket bucket : levels[level].subMap(key(fromBucket, 0), key(toBucket + 1, 0)).values()) {
+            RollupBucket visible = bucket.visibleAt(snapshotVersion);
+            if (visible != null) {
+                latest = Math.max(latest, visible.getVersion());
+            } else if (bucket.getFirstVersion() <= snapshotVersion) {
+                return snapshotVersion;
+            }
+        }
+        return latest;
+    }
+
+    @FunctionalInterface
+    public interface MissingBucketHandler {
+        void accumulate(int cityCode, long fromSecond, long toSecond);
+    }
+
+    private static long key(long bucket, int cityCode) {
+        return (bucket << CITY_BITS) | cityCode;
+    }
+}
@@ -0,0 +1,457 @@
+package svs.weatherapp.analytics;
+
+import lombok.Value;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.station.StationRegistry;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+public class WeatherStore {
+    static final int CHUNK_SIZE = 4096;
+    private static final int OFFSET_MASK = CHUNK_SIZE - 1;
+
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+    private static final int BYTES_PER_READING = Long.BYTES + Integer.BYTES + Double.BYTES + Integer.BYTES
+            + Byte.BYTES + 4 * Short.BYTES;
+    private static final Comparator<Candidate> HOTTEST_FIRST = Comparator
+            .comparingDouble((Candidate candidate) -> -candidate.getTemperature())
+            .thenComparingInt(Candidate::getIndex);
+    private static final Comparator<Candidate> COLDEST_FIRST = Comparator
+            .comparingDouble(Candidate::getTemperature)
+            .thenComparingInt(Candidate::getIndex);
+
+    private Chunk[] chunks = new Chunk[16];
+    private int chunkCount;
+    private int size;
+
+    // Chunks below this index, and the directory itself, may be referenced by a published view,
+    // so the writer copies them before touching any slot a reader can see.
+    private int sharedChunks;
+    private boolean directoryShared;
+
+    // Full chunks from this index on may lack a range tree; they get one on the next publish.
+    private int untreedChunk;
+
+    private volatile View view = new View(chunks, 0);
+
+    public void append(Weather weather) {
+        LocalDateTime date = weather.getDate();
+        append(toEpochSecond(date), date.getNano(), StationRegistry.global().id(weather),
+                weather.getCondition().ordinal(), weather.getTemperature());
+    }
+
+    public void append(long second, int nano, int cityCode, int conditionCode, double temperature) {
+        if ((size & OFFSET_MASK) == 0) {
+            addChunk();
+        }
+        int index = size;
+        if (size > 0 && compare(second, nano, chunkAt(size - 1).seconds[(size - 1) & OFFSET_MASK],
+                chunkAt(size - 1).nanos[(size - 1) & OFFSET_MASK]) < 0) {
+            index = new View(chunks, size).upperBound(second, nano);
+            shiftRight(index);
+        }
+        Chunk chunk = chunkAt(index);
+        int offset = index & OFFSET_MASK;
+        chunk.tree = null;
+        chunk.seconds[offset] = second;
+        chunk.nanos[offset] = nano;
+        chunk.temperatures[offset] = temperature;
+        chunk.cities[offset] = cityCode;
+        chunk.conditions[offset] = (byte) conditionCode;
+        size++;
+    }
+
+    public void publish() {
+        int fullChunks = size / CHUNK_SIZE;
+        for (int c = untreedChunk; c < fullChunks; c++) {
+            if (chunks[c].tree == null) {
+                chunks[c].tree = new ChunkTree(chunks[c].temperatures);
+            }
+        }
+        untreedChunk = fullChunks;
+        view = new View(chunks, size);
+        sharedChunks = chunkCount;
+        directoryShared = true;
+    }
+
+    public View view() {
+        return view;
+    }
+
+    public static long toEpochSecond(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime toDateTime(long epochSecond, int nano) {
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    // City stations come back with their City set, other stations by name.
+    public static Weather toWeather(long epochSecond, int nano, int cityCode, int conditionCode, double temperature) {
+        StationRegistry registry = StationRegistry.global();
+        return Weather.builder()
+                .city(registry.city(cityCode))
+                .station(cityCode < registry.cityCount() ? null : registry.name(cityCode))
+                .temperature(temperature)
+                .condition(CONDITIONS[conditionCode])
+                .date(toDateTime(epochSecond, nano))
+                .build();
+    }
+
+    public static int compare(long second, int nano, long otherSecond, int otherNano) {
+        int bySecond = Long.compare(second, otherSecond);
+        return bySecond != 0 ? bySecond : Integer.compare(nano, otherNano);
+    }
+
+    private Chunk chunkAt(int index) {
+        return chunks[index / CHUNK_SIZE];
+    }
+
+    private void shiftRight(int from) {
+        int firstChunk = from / CHUNK_SIZE;
+        int lastChunk = size / CHUNK_SIZE;
+        copyShared(firstChunk, lastChunk);
+        untreedChunk = Math.min(untreedChunk, firstChunk);
+        for (int c = lastChunk; c >= firstChunk; c--) {
+            Chunk chunk = chunks[c];
+            int start = c == firstChunk ? from & OFFSET_MASK : 0;
+            int end = c == lastChunk ? size & OFFSET_MASK : CHUNK_SIZE - 1;
+            chunk.move(start, start + 1, end - start);
+            if (c > firstChunk) {
+                chunk.copyFrom(chunks[c - 1], CHUNK_SIZE - 1, 0);
+            }
+        }
+    }
+
+    private void copyShared(int firstChunk, int lastChunk) {
+        if (firstChunk >= sharedChunks) {
+            return;
+        }
+        if (directoryShared) {
+            chunks = chunks.clone();
+            directoryShared = false;
+        }
+        for (int c = firstChunk; c < Math.min(sharedChunks, lastChunk + 1); c++) {
+            chunks[c] = chunks[c].copy();
+        }
+        sharedChunks = firstChunk;
+    }
+
+    private void addChunk() {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            directoryShared = false;
+        }
+        chunks[chunkCount++] = new Chunk();
+    }
+
+    public static final class View {
+        private final Chunk[] chunks;
+        private final int size;
+
+        // Tree over the full chunks, built on the first range query against this view.
+        private volatile ViewTree tree;
+
+        private View(Chunk[] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long estimatedBytes() {
+            return (long) Math.ceilDiv(size, CHUNK_SIZE) * CHUNK_SIZE * BYTES_PER_READING;
+        }
+
+        public long epochSecond(int index) {
+            return chunks[index / CHUNK_SIZE].seconds[index & OFFSET_MASK];
+        }
+
+        public int nano(int index) {
+            return chunks[index / CHUNK_SIZE].nanos[index & OFFSET_MASK];
+        }
+
+        public double temperature(int index) {
+            return chunks[index / CHUNK_SIZE].temperatures[index & OFFSET_MASK];
+        }
+
+        public int cityCode(int index) {
+            return chunks[index / CHUNK_SIZE].cities[index & OFFSET_MASK];
+        }
+
+        public int conditionCode(int index) {
+            return chunks[index / CHUNK_SIZE].conditions[index & OFFSET_MASK];
+        }
+
+        public void scan(int from, int to, ReadingConsumer consumer) {
+            int index = from;
+            while (index < to) {
+                Chunk chunk = chunks[index / CHUNK_SIZE];
+                int offset = index & OFFSET_MASK;
+                int end = Math.min(CHUNK_SIZE, offset + (to - index));
+                for (int i = offset; i < end; i++) {
+                    consumer.accept(chunk.seconds[i], chunk.nanos[i], chunk.cities[i], chunk.conditions[i],
+                            chunk.temperatures[i]);
+                }
+                index += end - offset;
+            }
+        }
+
+        public int lowerBound(long second, int nano) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(epochSecond(mid), nano(mid), second, nano) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        public int upperBound(long second, int nano) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(epochSecond(mid), nano(mid), second, nano) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Indexes of the k hottest or coldest readings in [from, to), best first; ties go to the earlier reading.
+        // Whole chunks are covered by the view tree and partial chunks by their own trees, so the cost is
+        // logarithmic in the range size plus k log k, apart from the unsealed tail chunk.
+        public int[] extremeIndexes(int from, int to, int k, boolean hottest) {
+            to = Math.min(to, size);
+            if (from >= to || k <= 0) {
+                return new int[0];
+            }
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(hottest ? HOTTEST_FIRST : COLDEST_FIRST);
+            int firstChunk = from / CHUNK_SIZE;
+            int lastChunk = (to - 1) / CHUNK_SIZE;
+            int lastOffset = ((to - 1) & OFFSET_MASK) + 1;
+            if (firstChunk == lastChunk) {
+                offerChunkRange(queue, firstChunk, from & OFFSET_MASK, lastOffset, hottest);
+            } else {
+                offerChunkRange(queue, firstChunk, from & OFFSET_MASK, CHUNK_SIZE, hottest);
+                offerWholeChunks(queue, firstChunk + 1, lastChunk, hottest);
+                offerChunkRange(queue, lastChunk, 0, lastOffset, hottest);
+            }
+
+            int[] result = new int[Math.min(k, to - from)];
+            int found = 0;
+            ViewTree viewTree = tree;
+            while (found < result.length) {
+                Candidate candidate = queue.poll();
+                if (candidate.getChunk() < 0) {
+                    if (candidate.getNode() >= viewTree.leaves) {
+                        offerChunkNode(queue, candidate.getIndex() / CHUNK_SIZE, 1, hottest);
+                    } else {
+                        offerViewNode(queue, viewTree, candidate.getNode() * 2, hottest);
+                        offerViewNode(queue, viewTree, candidate.getNode() * 2 + 1, hottest);
+                    }
+                } else if (candidate.getNode() >= CHUNK_SIZE) {
+                    result[found++] = candidate.getIndex();
+                } else {
+                    offerChunkNode(queue, candidate.getChunk(), candidate.getNode() * 2, hottest);
+                    offerChunkNode(queue, candidate.getChunk(), candidate.getNode() * 2 + 1, hottest);
+                }
+            }
+            return result;
+        }
+
+        private void offerChunkRange(PriorityQueue<Candidate> queue, int c, int from, int to, boolean hottest) {
+            if (chunks[c].tree == null) {
+                for (int offset = from; offset < to; offset++) {
+                    offerChunkNode(queue, c, CHUNK_SIZE + offset, hottest);
+                }
+                return;
+            }
+            for (int low = from + CHUNK_SIZE, high = to + CHUNK_SIZE; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) {
+                    offerChunkNode(queue, c, low++, hottest);
+                }
+                if ((high & 1) == 1) {
+                    offerChunkNode(queue, c, --high, hottest);
+                }
+            }
+        }
+
+        private void offerWholeChunks(PriorityQueue<Candidate> queue, int from, int to, boolean hottest) {
+            if (from >= to) {
+                return;
+            }
+            ViewTree viewTree = viewTree();
+            for (int low = from + viewTree.leaves, high = to + viewTree.leaves; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) {
+                    offerViewNode(queue, viewTree, low++, hottest);
+                }
+                if ((high & 1) == 1) {
+                    offerViewNode(queue, viewTree, --high, hottest);
+                }
+            }
+        }
+
+        private void offerChunkNode(PriorityQueue<Candidate> queue, int c, int node, boolean hottest) {
+            Chunk chunk = chunks[c];
+            int offset = node >= CHUNK_SIZE ? node - CHUNK_SIZE : chunk.tree.best(hottest)[node];
+            queue.add(new Candidate(c, node, c * CHUNK_SIZE + offset, chunk.temperatures[offset]));
+        }
+
+        private void offerViewNode(PriorityQueue<Candidate> queue, ViewTree viewTree, int node, boolean hottest) {
+            int c = viewTree.best(hottest)[node];
+            if (c < 0) {
+                return;
+            }
+            int offset = chunks[c].tree.best(hottest)[1];
+            queue.add(new Candidate(-1, node, c * CHUNK_SIZE + offset, chunks[c].temperatures[offset]));
+        }
+
+        private ViewTree viewTree() {
+            ViewTree viewTree = tree;
+            if (viewTree == null) {
+                viewTree = new ViewTree(chunks, size / CHUNK_SIZE);
+                tree = viewTree;
+            }
+            return viewTree;
+        }
+
+        public Weather get(int index) {
+            Chunk chunk = chunks[index / CHUNK_SIZE];
+            int offset = index & OFFSET_MASK;
+            return toWeather(chunk.seconds[offset], chunk.nanos[offset], chunk.cities[offset],
+                    chunk.conditions[offset], chunk.temperatures[offset]);
+        }
+    }
+
+    private static final class Chunk {
+        private ChunkTree tree;
+        private final long[] seconds;
+        private final int[] nanos;
+        private final double[] temperatures;
+        private final int[] cities;
+        private final byte[] conditions;
+
+        private Chunk() {
+            this(new long[CHUNK_SIZE], new int[CHUNK_SIZE], new double[CHUNK_SIZE], new int[CHUNK_SIZE],
+                    new byte[CHUNK_SIZE]);
+        }
+
+        private Chunk(long[] seconds, int[] nanos, double[] temperatures, int[] cities, byte[] conditions) {
+            this.seconds = seconds;
+            this.nanos = nanos;
+            this.temperatures = temperatures;
+            this.cities = cities;
+            this.conditions = conditions;
+        }
+
+        private Chunk copy() {
+            return new Chunk(seconds.clone(), nanos.clone(), temperatures.clone(), cities.clone(), conditions.clone());
+        }
+
+        private void move(int from, int to, int length) {
+            if (length <= 0) {
+                return;
+            }
+            tree = null;
+            System.arraycopy(seconds, from, seconds, to, length);
+            System.arraycopy(nanos, from, nanos, to, length);
+            System.arraycopy(temperatures, from, temperatures, to, length);
+            System.arraycopy(cities, from, cities, to, length);
+            System.arraycopy(conditions, from, conditions, to, length);
+        }
+
+        private void copyFrom(Chunk source, int sourceOffset, int offset) {
+            tree = null;
+            seconds[offset] = source.seconds[sourceOffset];
+            nanos[offset] = source.nanos[sourceOffset];
+            temperatures[offset] = source.temperatures[sourceOffset];
+            cities[offset] = source.cities[sourceOffset];
+            conditions[offset] = source.conditions[sourceOffset];
+        }
+    }
+
+    // Segment trees over a sealed chunk holding the offset of the hottest and coldest reading under each node;
+    // node 1 is the root and the leaves start at CHUNK_SIZE.
+    private static final class ChunkTree {
+        private final short[] hottest = new short[2 * CHUNK_SIZE];
+        private final short[] coldest = new short[2 * CHUNK_SIZE];
+
+        private ChunkTree(double[] temperatures) {
+            for (int offset = 0; offset < CHUNK_SIZE; offset++) {
+                hottest[CHUNK_SIZE + offset] = (short) offset;
+                coldest[CHUNK_SIZE + offset] = (short) offset;
+            }
+            for (int node = CHUNK_SIZE - 1; node > 0; node--) {
+                short left = hottest[2 * node];
+                short right = hottest[2 * node + 1];
+                hottest[node] = temperatures[right] > temperatures[left] ? right : left;
+                left = coldest[2 * node];
+                right = coldest[2 * node + 1];
+                coldest[node] = temperatures[right] < temperatures[left] ? right : left;
+            }
+        }
+
+        private short[] best(boolean hottest) {
+            return hottest ? this.hottest : this.coldest;
+        }
+    }
+
+    // The same over whole chunks, holding chunk numbers and -1 for padding leaves.
+    private static final class ViewTree {
+        private final int leaves;
+        private final int[] hottest;
+        private final int[] coldest;
+
+        private ViewTree(Chunk[] chunks, int fullChunks) {
+            leaves = Math.max(1, Integer.highestOneBit(Math.max(1, fullChunks - 1)) << 1);
+            hottest = new int[2 * leaves];
+            coldest = new int[2 * leaves];
+            for (int c = 0; c < leaves; c++) {
+                hottest[leaves + c] = c < fullChunks ? c : -1;
+                coldest[leaves + c] = c < fullChunks ? c : -1;
+            }
+            for (int node = leaves - 1; node > 0; node--) {
+                hottest[node] = pick(chunks, hottest[2 * node], hottest[2 * node + 1], true);
+                coldest[node] = pick(chunks, coldest[2 * node], coldest[2 * node + 1], false);
+            }
+        }
+
+        private int[] best(boolean hottest) {
+            return hottest ? this.hottest : this.coldest;
+        }
+
+        private static int pick(Chunk[] chunks, int left, int right, boolean hottest) {
+            if (left < 0 || right < 0) {
+                return left < 0 ? right : left;
+            }
+            double leftTemperature = chunks[left].temperatures[chunks[left].tree.best(hottest)[1]];
+            double rightTemperature = chunks[right].temperatures[chunks[right].tree.best(hottest)[1]];
+            return (hottest ? rightTemperature > leftTemperature : rightTemperature < leftTemperature) ? right : left;
+        }
+    }
+
+    // A tree node, or a single reading when node is a leaf, ranked by its best reading. Chunk is -1 for nodes of
+    // the view tree.
+    @Value
+    private static class Candidate {
+        int chunk;
+        int node;
+        int index;
+        double temperature;
+    }
+}
@@ -1,18 +1,28 @@
 package svs.weatherapp.config;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import svs.weatherapp.analytics.WeatherAnalyticsService;
 import svs.weatherapp.model.Weather;
+import svs.weatherapp.serde.WeatherDeserializer;
+import svs.weatherapp.serde.WeatherSerde;
+import svs.weatherapp.serde.WeatherSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -30,12 +40,51 @@ public class KafkaConfig {
     @Value("${app.kafka.group}")
     private String weatherGroupId;
 
+    @Value("${app.kafka.topic}")
+    private String weatherTopic;
+
+    @Value("${app.kafka.partitions:8}")
+    private int partitions;
+
+    @Value("${app.kafka.listener-concurrency:4}")
+    private int listenerConcurrency;
+
+    @Value("${app.kafka.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${app.kafka.serde:BINARY}")
+    private WeatherSerde serde;
+
+    @Value("${app.kafka.producer.batch-size:65536}")
+    private int producerBatchSize;
+
+    @Value("${app.kafka.producer.linger-ms:5}")
+    private int producerLingerMs;
+
+    @Value("${app.kafka.producer.compression-type:lz4}")
+    private String producerCompressionType;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean
+    public NewTopic weatherTopic() {
+        return TopicBuilder.name(weatherTopic)
+                .partitions(partitions)
+                .replicas(1)
+                .build();
+    }
+
     @Bean
     public ProducerFactory<String, Weather> producerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                serde == WeatherSerde.JSON ? JsonSerializer.class : WeatherSerializer.class);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producerCompressionType);
         return new DefaultKafkaProducerFactory<>(config);
     }
 
@@ -50,17 +99,39 @@ public class KafkaConfig {
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, weatherGroupId);
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        JsonDeserializer<Weather> deserializer = new JsonDeserializer<>(Weather.class);
-        deserializer.addTrustedPackages(trustedPackages);
-        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), deserializer);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        // Rebalances only revoke the partitions that actually move, so shards of the others stay in place
+        config.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+        // A payload that fails to deserialize reaches the listener as a null value instead of failing every poll
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(weatherDeserializer()));
+    }
+
+    private Deserializer<Weather> weatherDeserializer() {
+        if (serde == WeatherSerde.JSON) {
+            JsonDeserializer<Weather> deserializer = new JsonDeserializer<>(Weather.class);
+            deserializer.addTrustedPackages(trustedPackages);
+            return deserializer;
+        }
+        return new WeatherDeserializer();
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Weather> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Weather> kafkaListenerContainerFactory(
+            WeatherAnalyticsService weatherAnalyticsService) {
         ConcurrentKafkaListenerContainerFactory<String, Weather> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(listenerConcurrency);
+        factory.getContainerProperties().setConsumerRebalanceListener(
+                new PartitionShardRebalanceListener(weatherAnalyticsService));
+        if (virtualThreads) {
+            // Boot only applies this to the factory it creates itself
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("weather-listener-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
         return factory;
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package svs.weatherapp.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import svs.weatherapp.analytics.WeatherAnalyticsService;
+
+import java.util.Collection;
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
+public class PartitionShardRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final WeatherAnalyticsService weatherAnalyticsService;
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        weatherAnalyticsService.releasePartitions(toPartitionNumbers(partitions));
+        log.info("Analytics shards released: {}", partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        weatherAnalyticsService.releasePartitions(toPartitionNumbers(partitions));
+        log.info("Analytics shards lost: {}", partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        weatherAnalyticsService.assignPartitions(toPartitionNumbers(partitions));
+        log.info("Analytics shards assigned: {}", partitions);
+    }
+
+    private static List<Integer> toPartitionNumbers(Collection<TopicPartition> partitions) {
+        return partitions.stream().map(TopicPartition::partition).toList();
+    }
+}
@@ -0,0 +1,5 @@
+package svs.weatherapp.consumer;
+
+public interface WeatherBootstrapService {
+    void catchUp();
+}
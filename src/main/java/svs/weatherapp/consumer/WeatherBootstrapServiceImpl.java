@@ -0,0 +1,212 @@
+package svs.weatherapp.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+import svs.weatherapp.analytics.WeatherAnalyticsService;
+import svs.weatherapp.model.Weather;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Rebuilds the analytics state before live consumption starts: every partition is read from the last applied
+// offset up to the high watermark seen at startup, in parallel and without per-batch logging, and the offsets
+// reached are committed for the listener group. The live listener is started once all partitions caught up.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.bootstrap.enabled", havingValue = "true")
+public class WeatherBootstrapServiceImpl implements WeatherBootstrapService {
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    @Value("${app.kafka.topic}")
+    private String weatherTopic;
+
+    @Value("${app.kafka.group}")
+    private String weatherGroupId;
+
+    @Value("${app.bootstrap.threads:4}")
+    private int threads;
+
+    @Value("${app.bootstrap.max-poll-records:10000}")
+    private int maxPollRecords;
+
+    @Value("${app.bootstrap.fetch-max-bytes:52428800}")
+    private int fetchMaxBytes;
+
+    @Value("${app.bootstrap.max-partition-fetch-bytes:10485760}")
+    private int maxPartitionFetchBytes;
+
+    @Value("${app.bootstrap.report-interval-seconds:5}")
+    private long reportIntervalSeconds;
+
+    private final ConsumerFactory<String, Weather> consumerFactory;
+
+    private final KafkaListenerEndpointRegistry registry;
+
+    private final WeatherAnalyticsService weatherAnalyticsService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofPlatform().name("weather-bootstrap").start(() -> {
+            try {
+                catchUp();
+            } catch (RuntimeException e) {
+                log.error("Catch-up failed, starting the live listener from committed offsets", e);
+            }
+            startLiveListener();
+        });
+    }
+
+    @Override
+    public void catchUp() {
+        Map<TopicPartition, Long> endOffsets;
+        try (Consumer<String, Weather> consumer = createConsumer("metadata")) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(weatherTopic)) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+            endOffsets = consumer.endOffsets(partitions);
+        }
+
+        long target = 0;
+        List<List<TopicPartition>> assignments = new ArrayList<>();
+        for (int i = 0; i < Math.min(threads, endOffsets.size()); i++) {
+            assignments.add(new ArrayList<>());
+        }
+        int next = 0;
+        for (Map.Entry<TopicPartition, Long> entry : endOffsets.entrySet()) {
+            long from = weatherAnalyticsService.lastAppliedOffset(entry.getKey().partition()) + 1;
+            target += Math.max(entry.getValue() - from, 0);
+            assignments.get(next++ % assignments.size()).add(entry.getKey());
+        }
+        log.info("Catch-up started: {} partitions, about {} records on {} threads", endOffsets.size(), target,
+                assignments.size());
+
+        LongAdder replayed = new LongAdder();
+        long startNanos = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(assignments.size(), 1));
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < assignments.size(); i++) {
+                List<TopicPartition> assigned = assignments.get(i);
+                String suffix = String.valueOf(i);
+                workers.add(executor.submit(() -> replay(assigned, endOffsets, suffix, replayed)));
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(reportIntervalSeconds, TimeUnit.SECONDS)) {
+                report(replayed.sum(), target, startNanos);
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Catch-up interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Catch-up failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Catch-up finished");
+        report(replayed.sum(), target, startNanos);
+    }
+
+    private void replay(List<TopicPartition> partitions, Map<TopicPartition, Long> endOffsets, String suffix,
+                        LongAdder replayed) {
+        try (Consumer<String, Weather> consumer = createConsumer(suffix)) {
+            consumer.assign(partitions);
+            Set<TopicPartition> remaining = new HashSet<>();
+            for (TopicPartition partition : partitions) {
+                long from = weatherAnalyticsService.lastAppliedOffset(partition.partition()) + 1;
+                if (from > 0) {
+                    consumer.seek(partition, from);
+                } else {
+                    consumer.seekToBeginning(List.of(partition));
+                }
+                if (consumer.position(partition) < endOffsets.get(partition)) {
+                    remaining.add(partition);
+                } else {
+                    consumer.pause(List.of(partition));
+                }
+            }
+
+            while (!remaining.isEmpty()) {
+                ConsumerRecords<String, Weather> records = consumer.poll(POLL_TIMEOUT);
+                for (TopicPartition partition : records.partitions()) {
+                    List<ConsumerRecord<String, Weather>> partitionRecords = records.records(partition);
+                    List<Weather> weathers = new ArrayList<>(partitionRecords.size());
+                    for (ConsumerRecord<String, Weather> record : partitionRecords) {
+                        if (record.value() != null) {
+                            weathers.add(record.value());
+                        }
+                    }
+                    weatherAnalyticsService.processWeather(partition.partition(), weathers,
+                            partitionRecords.get(partitionRecords.size() - 1).offset());
+                    replayed.add(partitionRecords.size());
+                }
+                for (TopicPartition partition : List.copyOf(remaining)) {
+                    if (consumer.position(partition) >= endOffsets.get(partition)) {
+                        remaining.remove(partition);
+                        consumer.pause(List.of(partition));
+                    }
+                }
+            }
+
+            Map<TopicPartition, OffsetAndMetadata> reached = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                reached.put(partition, new OffsetAndMetadata(consumer.position(partition)));
+            }
+            consumer.commitSync(reached);
+        }
+    }
+
+    private Consumer<String, Weather> createConsumer(String suffix) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        overrides.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, fetchMaxBytes);
+        overrides.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, maxPartitionFetchBytes);
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return consumerFactory.createConsumer(weatherGroupId, "weather-bootstrap", "-" + suffix, overrides);
+    }
+
+    private void startLiveListener() {
+        MessageListenerContainer container = registry.getListenerContainer(WeatherConsumerService.LISTENER_ID);
+        if (container != null && !container.isRunning()) {
+            container.start();
+            log.info("Live listener started");
+        }
+    }
+
+    private static void report(long replayed, long target, long startNanos) {
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        log.info("Catch-up: {}/{} records ({}%), {} records/s", replayed, target,
+                target > 0 ? Math.min(100, replayed * 100 / target) : 100, Math.round(replayed / elapsedSeconds));
+    }
+}
@@ -1,10 +1,15 @@
 package svs.weatherapp.consumer;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import svs.weatherapp.model.Weather;
 
+import java.util.List;
+
 public interface WeatherConsumerService {
+    String LISTENER_ID = "weather-listener";
 
-    @KafkaListener(topics = "${app.kafka.topic}", groupId = "${app.kafka.group}")
-    void listen(Weather weather);
-}
\ No newline at end of file
+    @KafkaListener(id = LISTENER_ID, topics = "${app.kafka.topic}", groupId = "${app.kafka.group}",
+            autoStartup = "#{!${app.bootstrap.enabled:false}}")
+    void listen(List<ConsumerRecord<String, Weather>> records);
+}
@@ -2,22 +2,85 @@ package svs.weatherapp.consumer;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Service;
 import svs.weatherapp.analytics.WeatherAnalyticsService;
+import svs.weatherapp.jfr.WeatherBatchEvent;
 import svs.weatherapp.model.Weather;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class WeatherConsumerServiceImpl implements WeatherConsumerService {
+public class WeatherConsumerServiceImpl implements WeatherConsumerService, ConsumerSeekAware {
 
     private final WeatherAnalyticsService weatherAnalyticsService;
 
     @Override
-    @KafkaListener(topics = "${app.kafka.topic}", groupId = "${app.kafka.group}")
-    public void listen(Weather weather) {
-        log.info("Weather received: {}", weather);
-        weatherAnalyticsService.processWeather(weather);
+    @KafkaListener(id = LISTENER_ID, topics = "${app.kafka.topic}", groupId = "${app.kafka.group}",
+            autoStartup = "#{!${app.bootstrap.enabled:false}}")
+    public void listen(List<ConsumerRecord<String, Weather>> records) {
+        // A poll returns records grouped by partition, so each run goes to its partition's shard in one call.
+        // Tombstones and values that failed to deserialize are skipped, but their offsets still count as applied.
+        List<Weather> run = new ArrayList<>(records.size());
+        int partition = -1;
+        long lastOffset = -1;
+        for (ConsumerRecord<String, Weather> record : records) {
+            if (record.partition() != partition && partition >= 0) {
+                process(partition, run, lastOffset);
+                run = new ArrayList<>(records.size());
+            }
+            partition = record.partition();
+            lastOffset = record.offset();
+            if (record.value() != null) {
+                run.add(record.value());
+            }
+        }
+        if (partition >= 0) {
+            process(partition, run, lastOffset);
+        }
+        log.debug("Weather batch received: {} records", records.size());
+    }
+
+    private void process(int partition, List<Weather> weathers, long lastOffset) {
+        WeatherBatchEvent event = new WeatherBatchEvent();
+        event.begin();
+        weatherAnalyticsService.processWeather(partition, weathers, lastOffset);
+        event.end();
+        if (event.shouldCommit()) {
+            event.partition = partition;
+            event.records = weathers.size();
+            event.lastOffset = lastOffset;
+            event.cities = weathers.stream()
+                    .map(Weather::stationName)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.joining(","));
+            event.commit();
+        }
+    }
+
+    // Every assignment resumes right after the last offset the partition's shard has applied, whether it was kept
+    // across the rebalance, restored from a checkpoint or storage, or filled by the bootstrap replay. The committed
+    // offset may be behind it (readings applied but not yet committed) or ahead of it (another instance consumed
+    // the partition meanwhile).
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        for (Map.Entry<TopicPartition, Long> assignment : assignments.entrySet()) {
+            TopicPartition topicPartition = assignment.getKey();
+            long next = weatherAnalyticsService.lastAppliedOffset(topicPartition.partition()) + 1;
+            Long position = assignment.getValue();
+            if (next > 0 && (position == null || position != next)) {
+                callback.seek(topicPartition.topic(), topicPartition.partition(), next);
+                log.info("Partition {} resumes from offset {}", topicPartition, next);
+            }
+        }
     }
-}
\ No newline at end of file
+}
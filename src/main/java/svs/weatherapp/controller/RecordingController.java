@@ -0,0 +1,55 @@
+package svs.weatherapp.controller;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import svs.weatherapp.jfr.PeriodSummaryEvent;
+import svs.weatherapp.jfr.SnapshotPublishEvent;
+import svs.weatherapp.jfr.WeatherBatchEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/debug")
+@Slf4j
+@ConditionalOnProperty(name = "app.jfr.endpoint.enabled", havingValue = "true")
+public class RecordingController {
+    private static final int MAX_SECONDS = 300;
+
+    @GetMapping("/recording")
+    public ResponseEntity<byte[]> record(@RequestParam(defaultValue = "30") int seconds,
+                                         @RequestParam(defaultValue = "profile") String settings)
+            throws IOException, ParseException, InterruptedException {
+        int duration = Math.max(1, Math.min(seconds, MAX_SECONDS));
+        log.info("Got recording: seconds={}, settings={}", duration, settings);
+        Path file = Files.createTempFile("weather-", ".jfr");
+        try (Recording recording = new Recording(Configuration.getConfiguration(settings))) {
+            recording.setName("weather-app-on-demand");
+            recording.enable(WeatherBatchEvent.class);
+            recording.enable(SnapshotPublishEvent.class);
+            recording.enable(PeriodSummaryEvent.class);
+            recording.start();
+            Thread.sleep(Duration.ofSeconds(duration));
+            recording.stop();
+            recording.dump(file);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                    .body(Files.readAllBytes(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
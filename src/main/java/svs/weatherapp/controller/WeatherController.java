@@ -1,12 +1,23 @@
 package svs.weatherapp.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import svs.weatherapp.analytics.WeatherAnalyticsService;
-import svs.weatherapp.dto.WeatherAnalyticsDto;
+import svs.weatherapp.dto.RecentWeatherDto;
 import svs.weatherapp.dto.WeatherSummaryDto;
+import svs.weatherapp.metrics.WeatherMetrics;
+import svs.weatherapp.stream.WeatherStreamService;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -17,23 +28,78 @@ import java.util.List;
 @RequestMapping("/weather")
 @Slf4j
 public class WeatherController {
+    private static final long STARTED_AT = System.currentTimeMillis();
+    private static final int MAX_TOP = 1000;
 
     private final WeatherAnalyticsService weatherAnalyticsService;
 
+    private final WeatherMetrics weatherMetrics;
+
+    private final ObjectMapper objectMapper;
+
+    private final WeatherStreamService weatherStreamService;
+
+    private volatile CachedStats cachedStats;
+
+    // The serialized stats are kept per data version. Version numbers restart with the process, so the ETag
+    // also carries the process start time. The timer covers the whole handler, so 304s and cache hits count too.
     @GetMapping("/stats")
+    public ResponseEntity<byte[]> getStats(WebRequest request) throws JsonProcessingException {
+        Timer.Sample sample = Timer.start(weatherMetrics.getRegistry());
+        try {
+            long version = weatherAnalyticsService.getDataVersion();
+            String etag = "\"" + STARTED_AT + "-" + version + "\"";
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            log.info("Got getStats");
+            CachedStats cached = cachedStats;
+            if (cached == null || cached.getVersion() != version) {
+                byte[] body = objectMapper.writeValueAsBytes(weatherAnalyticsService.getCityStats());
+                cached = new CachedStats(version, body);
+                cachedStats = cached;
+            }
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(cached.getBody());
+        } finally {
+            sample.stop(weatherMetrics.getStatsTimer());
+        }
+    }
+
+    @GetMapping(path = "/stats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStats() {
+        log.info("Got streamStats");
+        return weatherStreamService.subscribe();
+    }
+
+    @GetMapping("/stats/recent")
     @ResponseStatus(HttpStatus.OK)
-    public List<WeatherAnalyticsDto> getStats() {
-        log.info("Got getStats");
-        return weatherAnalyticsService.getCityStats();
+    public List<RecentWeatherDto> getRecentStats() {
+        log.info("Got getRecentStats");
+        return weatherMetrics.getRecentTimer().record(weatherAnalyticsService::getRecentStats);
     }
 
     @GetMapping("/summary/period")
     @ResponseStatus(HttpStatus.OK)
-    public WeatherSummaryDto getSummaryForPeriod(@RequestParam String start, @RequestParam String end) {
-        log.info("Got getSummaryForPeriod: start={}, end={}", start, end);
+    public WeatherSummaryDto getSummaryForPeriod(@RequestParam String start, @RequestParam String end,
+                                                 @RequestParam(defaultValue = "0") int top) {
+        log.info("Got getSummaryForPeriod: start={}, end={}, top={}", start, end, top);
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
         LocalDateTime startDate = LocalDateTime.parse(start, formatter);
         LocalDateTime endDate = LocalDateTime.parse(end, formatter);
-        return weatherAnalyticsService.getSummaryForPeriod(startDate, endDate);
+        if (top < 0 || top > MAX_TOP) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "top must be between 0 and " + MAX_TOP);
+        }
+        return weatherMetrics.getSummaryTimer().record(() -> top == 0
+                ? weatherAnalyticsService.getSummaryForPeriod(startDate, endDate)
+                : weatherAnalyticsService.getSummaryForPeriod(startDate, endDate, top));
+    }
+
+    @Value
+    private static class CachedStats {
+        long version;
+        byte[] body;
     }
-}
\ No newline at end of file
+}
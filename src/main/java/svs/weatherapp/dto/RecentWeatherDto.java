@@ -0,0 +1,18 @@
+package svs.weatherapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class RecentWeatherDto {
+    private final String city;
+    private final String latestDate;
+    private final String latestCondition;
+    private final double latestTemperature;
+    private final List<WindowStatsDto> windows;
+}
@@ -15,4 +15,7 @@ public class WeatherAnalyticsDto {
     private final double minTemperature;
     private final double maxTemperature;
     private final double averageTemperature;
+    private final double temperatureP50;
+    private final double temperatureP90;
+    private final double temperatureP99;
 }
\ No newline at end of file
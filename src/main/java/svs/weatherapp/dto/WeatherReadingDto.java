@@ -0,0 +1,15 @@
+package svs.weatherapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class WeatherReadingDto {
+    private final String city;
+    private final String date;
+    private final String condition;
+    private final double temperature;
+}
@@ -4,8 +4,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 public class WeatherSummaryDto {
     private final String mostRainyCity;
@@ -22,4 +24,11 @@ public class WeatherSummaryDto {
     private final long totalCloudyDays;
     private final long totalMeasurements;
     private final double averageTemperature;
+    private final double temperatureP50;
+    private final double temperatureP90;
+    private final double temperatureP99;
+    @Builder.Default
+    private final List<WeatherReadingDto> hottestReadings = List.of();
+    @Builder.Default
+    private final List<WeatherReadingDto> coldestReadings = List.of();
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package svs.weatherapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class WindowStatsDto {
+    private final String window;
+    private final long totalMeasurements;
+    private final long sunnyDays;
+    private final long rainyDays;
+    private final long cloudyDays;
+    private final double minTemperature;
+    private final double maxTemperature;
+    private final double averageTemperature;
+}
@@ -0,0 +1,34 @@
+package svs.weatherapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("svs.weatherapp.PeriodSummary")
+@Label("Period Summary")
+@Description("Execution of a period summary over all shards")
+@Category({"Weather App", "Query"})
+@StackTrace(false)
+public class PeriodSummaryEvent extends Event {
+
+    @Label("Start")
+    public String start;
+
+    @Label("End")
+    public String end;
+
+    @Label("Cities")
+    public String cities;
+
+    @Label("Rows Scanned")
+    public long rowsScanned;
+
+    @Label("Buckets Used")
+    public long bucketsUsed;
+
+    @Label("Measurements")
+    public long measurements;
+}
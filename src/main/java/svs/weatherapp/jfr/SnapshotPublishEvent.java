@@ -0,0 +1,29 @@
+package svs.weatherapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("svs.weatherapp.SnapshotPublish")
+@Label("Snapshot Publish")
+@Description("Publication of an immutable analytics snapshot for readers")
+@Category({"Weather App", "Ingestion"})
+@StackTrace(false)
+public class SnapshotPublishEvent extends Event {
+
+    @Label("Partition")
+    public int partition;
+
+    @Label("Version")
+    public long version;
+
+    @Label("Readings")
+    public int readings;
+
+    @Label("Changed Stations")
+    @Description("Stations with readings since the previous snapshot")
+    public String cities;
+}
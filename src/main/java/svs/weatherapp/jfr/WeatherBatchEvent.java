@@ -0,0 +1,28 @@
+package svs.weatherapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("svs.weatherapp.WeatherBatch")
+@Label("Weather Batch")
+@Description("Kafka records of one partition applied to the analytics store")
+@Category({"Weather App", "Ingestion"})
+@StackTrace(false)
+public class WeatherBatchEvent extends Event {
+
+    @Label("Partition")
+    public int partition;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Cities")
+    public String cities;
+
+    @Label("Last Offset")
+    public long lastOffset;
+}
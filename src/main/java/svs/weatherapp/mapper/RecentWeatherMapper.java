@@ -0,0 +1,39 @@
+package svs.weatherapp.mapper;
+
+import org.springframework.stereotype.Component;
+import svs.weatherapp.dto.RecentWeatherDto;
+import svs.weatherapp.dto.WindowStatsDto;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+public class RecentWeatherMapper {
+
+    public static RecentWeatherDto toRecentWeatherDto(String station, LocalDateTime latestDate,
+                                                      WeatherCondition latestCondition, double latestTemperature,
+                                                      List<WindowStatsDto> windows) {
+        return RecentWeatherDto.builder()
+                .city(station)
+                .latestDate(latestDate != null ? latestDate.toString() : "N/A")
+                .latestCondition(latestCondition != null ? latestCondition.name() : "N/A")
+                .latestTemperature(latestDate != null ? latestTemperature : 0)
+                .windows(windows)
+                .build();
+    }
+
+    public static WindowStatsDto toWindowStatsDto(String window, long count, long sunnyCount, long rainyCount,
+                                                  long cloudyCount, double sum, double min, double max) {
+        return WindowStatsDto.builder()
+                .window(window)
+                .totalMeasurements(count)
+                .sunnyDays(sunnyCount)
+                .rainyDays(rainyCount)
+                .cloudyDays(cloudyCount)
+                .minTemperature(count > 0 ? min : 0)
+                .maxTemperature(count > 0 ? max : 0)
+                .averageTemperature(count > 0 ? sum / count : 0)
+                .build();
+    }
+}
@@ -1,24 +1,27 @@
 package svs.weatherapp.mapper;
 
 import org.springframework.stereotype.Component;
+import svs.weatherapp.analytics.CityStats;
 import svs.weatherapp.dto.WeatherAnalyticsDto;
-import svs.weatherapp.model.City;
 
 import java.util.DoubleSummaryStatistics;
 
 @Component
 public class WeatherAnalyticsMapper {
 
-    public static WeatherAnalyticsDto toWeatherAnalyticsDto(City city, DoubleSummaryStatistics stats, long sunnyDays,
-                                                            long rainyDays, long cloudyDays) {
+    public static WeatherAnalyticsDto toWeatherAnalyticsDto(String station, CityStats stats) {
+        DoubleSummaryStatistics temperatures = stats.toTemperatureStats();
         return WeatherAnalyticsDto.builder()
-                .city(city.name())
-                .sunnyDays(sunnyDays)
-                .rainyDays(rainyDays)
-                .cloudyDays(cloudyDays)
-                .minTemperature(stats != null ? stats.getMin() : 0)
-                .maxTemperature(stats != null ? stats.getMax() : 0)
-                .averageTemperature(stats != null ? stats.getAverage() : 0)
+                .city(station)
+                .sunnyDays(stats.getSunnyCount())
+                .rainyDays(stats.getRainyCount())
+                .cloudyDays(stats.getCloudyCount())
+                .minTemperature(temperatures != null ? temperatures.getMin() : 0)
+                .maxTemperature(temperatures != null ? temperatures.getMax() : 0)
+                .averageTemperature(temperatures != null ? temperatures.getAverage() : 0)
+                .temperatureP50(stats.temperaturePercentile(50))
+                .temperatureP90(stats.temperaturePercentile(90))
+                .temperatureP99(stats.temperaturePercentile(99))
                 .build();
     }
-}
\ No newline at end of file
+}
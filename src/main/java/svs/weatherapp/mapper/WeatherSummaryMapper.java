@@ -1,50 +1,65 @@
 package svs.weatherapp.mapper;
 
 import org.springframework.stereotype.Component;
+import svs.weatherapp.dto.WeatherReadingDto;
 import svs.weatherapp.dto.WeatherSummaryDto;
-import svs.weatherapp.model.City;
 import svs.weatherapp.model.Weather;
 
 @Component
 public class WeatherSummaryMapper {
 
     public static WeatherSummaryDto toWeatherSummaryDto(
-            City mostRainyCity,
-            City mostSunnyCity,
-            City mostCloudyCity,
+            String mostRainyStation,
+            String mostSunnyStation,
+            String mostCloudyStation,
             Weather hottestWeather,
             Weather coldestWeather,
             Weather cloudiestWeather,
-            City coldestAvgCity,
-            City hottestAvgCity,
-            City cloudiestAvgCity,
+            String coldestAvgStation,
+            String hottestAvgStation,
+            String cloudiestAvgStation,
             long totalMeasurements,
             double averageTemperature,
             long totalRainyDays,
             long totalSunnyDays,
-            long totalCloudyDays
+            long totalCloudyDays,
+            double temperatureP50,
+            double temperatureP90,
+            double temperatureP99
     ) {
         return WeatherSummaryDto.builder()
-                .mostRainyCity(mostRainyCity != null ? mostRainyCity.name() : "N/A")
-                .mostSunnyCity(mostSunnyCity != null ? mostSunnyCity.name() : "N/A")
-                .mostCloudyCity(mostCloudyCity != null ? mostCloudyCity.name() : "N/A")
+                .mostRainyCity(mostRainyStation != null ? mostRainyStation : "N/A")
+                .mostSunnyCity(mostSunnyStation != null ? mostSunnyStation : "N/A")
+                .mostCloudyCity(mostCloudyStation != null ? mostCloudyStation : "N/A")
                 .hottestDay(hottestWeather != null
-                        ? hottestWeather.getDate().toLocalDate() + " in " + hottestWeather.getCity().name()
+                        ? hottestWeather.getDate().toLocalDate() + " in " + hottestWeather.stationName()
                         : "N/A")
                 .coldestDay(coldestWeather != null
-                        ? coldestWeather.getDate().toLocalDate() + " in " + coldestWeather.getCity().name()
+                        ? coldestWeather.getDate().toLocalDate() + " in " + coldestWeather.stationName()
                         : "N/A")
                 .cloudiestDay(cloudiestWeather != null
-                        ? cloudiestWeather.getDate().toLocalDate() + " in " + cloudiestWeather.getCity().name()
+                        ? cloudiestWeather.getDate().toLocalDate() + " in " + cloudiestWeather.stationName()
                         : "N/A")
-                .coldestAverageCity(coldestAvgCity != null ? coldestAvgCity.name() : "N/A")
-                .hottestAverageCity(hottestAvgCity != null ? hottestAvgCity.name() : "N/A")
-                .cloudiestAverageCity(cloudiestAvgCity != null ? cloudiestAvgCity.name() : "N/A")
+                .coldestAverageCity(coldestAvgStation != null ? coldestAvgStation : "N/A")
+                .hottestAverageCity(hottestAvgStation != null ? hottestAvgStation : "N/A")
+                .cloudiestAverageCity(cloudiestAvgStation != null ? cloudiestAvgStation : "N/A")
                 .totalMeasurements(totalMeasurements)
                 .averageTemperature(averageTemperature)
                 .totalRainyDays(totalRainyDays)
                 .totalSunnyDays(totalSunnyDays)
                 .totalCloudyDays(totalCloudyDays)
+                .temperatureP50(temperatureP50)
+                .temperatureP90(temperatureP90)
+                .temperatureP99(temperatureP99)
                 .build();
     }
-}
\ No newline at end of file
+
+    public static WeatherReadingDto toWeatherReadingDto(Weather weather) {
+        return WeatherReadingDto.builder()
+                .city(weather.stationName())
+                .date(weather.getDate().toString())
+                .condition(weather.getCondition().name())
+                .temperature(weather.getTemperature())
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package svs.weatherapp.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.LongSupplier;
+
+@Component
+@Getter
+public class WeatherMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Timer ingestTimer;
+
+    private final Timer ingestLagTimer;
+
+    private final Timer statsTimer;
+
+    private final Timer summaryTimer;
+
+    private final Timer recentTimer;
+
+    private final DistributionSummary summaryRowsScanned;
+
+    public WeatherMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.ingestTimer = Timer.builder("weather.ingest")
+                .description("Time to apply a batch of readings to the analytics store")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.ingestLagTimer = Timer.builder("weather.ingest.lag")
+                .description("Time from a reading's date until it is applied to the analytics store")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.statsTimer = Timer.builder("weather.query")
+                .description("Time to serve an analytics query")
+                .tag("query", "stats")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.summaryTimer = Timer.builder("weather.query")
+                .description("Time to serve an analytics query")
+                .tag("query", "summary")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.recentTimer = Timer.builder("weather.query")
+                .description("Time to serve an analytics query")
+                .tag("query", "recent")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.summaryRowsScanned = DistributionSummary.builder("weather.summary.rows.scanned")
+                .description("Raw readings scanned by a period summary")
+                .baseUnit("rows")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void recordIngestLag(LocalDateTime date, LocalDateTime ingestedAt) {
+        ingestLagTimer.record(Duration.between(date, ingestedAt));
+    }
+
+    public void registerStoreGauges(LongSupplier readings, LongSupplier estimatedBytes,
+                                    LongSupplier olderRollupVersions) {
+        Gauge.builder("weather.store.readings", readings, LongSupplier::getAsLong)
+                .strongReference(true)
+                .description("Readings held in the analytics store")
+                .register(registry);
+        Gauge.builder("weather.store.size", estimatedBytes, LongSupplier::getAsLong)
+                .strongReference(true)
+                .description("Estimated size of the analytics store")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("weather.rollup.versions", olderRollupVersions, LongSupplier::getAsLong)
+                .strongReference(true)
+                .description("Older rollup bucket versions kept for snapshots still being read")
+                .register(registry);
+    }
+}
@@ -16,4 +16,14 @@ public class Weather {
     private double temperature;
     private WeatherCondition condition;
     private LocalDateTime date;
-}
\ No newline at end of file
+    // Set for stations that are not one of the City values.
+    private String station;
+
+    public Weather(City city, double temperature, WeatherCondition condition, LocalDateTime date) {
+        this(city, temperature, condition, date, null);
+    }
+
+    public String stationName() {
+        return station != null ? station : city != null ? city.name() : null;
+    }
+}
@@ -0,0 +1,5 @@
+package svs.weatherapp.producer;
+
+public interface WeatherLoadGeneratorService {
+    void generateLoad();
+}
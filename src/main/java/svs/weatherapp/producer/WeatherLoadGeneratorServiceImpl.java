@@ -0,0 +1,201 @@
+package svs.weatherapp.producer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.load.enabled", havingValue = "true")
+public class WeatherLoadGeneratorServiceImpl implements WeatherLoadGeneratorService {
+
+    @Value("${app.kafka.topic}")
+    private String weatherTopic;
+
+    @Value("${app.load.rate:10000}")
+    private int targetRate;
+
+    @Value("${app.load.duration-seconds:60}")
+    private long durationSeconds;
+
+    @Value("${app.load.threads:4}")
+    private int threads;
+
+    @Value("${app.load.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    @Value("${app.load.city-weights:}")
+    private String cityWeights;
+
+    @Value("${app.load.condition-weights:}")
+    private String conditionWeights;
+
+    // Extra synthetic stations sent alongside the cities, to exercise the station registry at scale.
+    @Value("${app.load.stations:0}")
+    private int stations;
+
+    @Value("${app.load.timestamp-skew-seconds:0}")
+    private long timestampSkewSeconds;
+
+    @Value("${app.load.report-interval-seconds:5}")
+    private long reportIntervalSeconds;
+
+    private final KafkaTemplate<String, Weather> kafkaTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofPlatform().name("weather-load-generator").daemon().start(this::generateLoad);
+    }
+
+    @Override
+    public void generateLoad() {
+        WeightedChoice<City> cities = WeightedChoice.parse(City.values(), cityWeights);
+        WeightedChoice<WeatherCondition> conditions = WeightedChoice.parse(WeatherCondition.values(), conditionWeights);
+        LoadStats stats = new LoadStats();
+        // Every worker gets targetRate / workers msg/s and the first targetRate % workers one more, so the rates add
+        // up to the target exactly. A worker is never given less than 1 msg/s.
+        int workers = Math.max(1, Math.min(threads, targetRate));
+        int baseRate = targetRate / workers;
+        int extra = targetRate % workers;
+
+        log.info("Load generation started: target {} msg/s for {} s on {} {} threads, {} extra stations", targetRate,
+                durationSeconds, workers, virtualThreads ? "virtual" : "platform", stations);
+
+        long startNanos = System.nanoTime();
+        try (ExecutorService executor = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(workers)) {
+            for (int i = 0; i < workers; i++) {
+                long rate = Math.max(1, baseRate + (i < extra ? 1 : 0));
+                executor.submit(() -> sendAtRate(rate, rate * durationSeconds, cities, conditions, stats));
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(reportIntervalSeconds, TimeUnit.SECONDS)) {
+                stats.report(startNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        kafkaTemplate.flush();
+        log.info("Load generation finished");
+        stats.report(startNanos);
+    }
+
+    // Sends exactly quota messages paced at rate msg/s, instead of racing a shared deadline.
+    private void sendAtRate(long rate, long quota, WeightedChoice<City> cities,
+                            WeightedChoice<WeatherCondition> conditions, LoadStats stats) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long next = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (long i = 0; i < quota && !Thread.currentThread().isInterrupted(); i++) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int station = stations > 0 ? random.nextInt(City.values().length + stations) : 0;
+            City city = station < City.values().length ? cities.next(random) : null;
+            LocalDateTime date = LocalDateTime.now();
+            if (timestampSkewSeconds > 0) {
+                date = date.minusNanos(random.nextLong(TimeUnit.SECONDS.toNanos(timestampSkewSeconds)));
+            }
+            Weather weather = Weather.builder()
+                    .city(city)
+                    .station(city == null ? "STATION-" + (station - City.values().length) : null)
+                    .temperature(Math.round(random.nextDouble() * 35 * 10) / 10.0)
+                    .condition(conditions.next(random))
+                    .date(date)
+                    .build();
+
+            long sentAt = System.nanoTime();
+            stats.sent.increment();
+            kafkaTemplate.send(weatherTopic, weather.stationName(), weather).whenComplete((result, error) -> {
+                if (error != null) {
+                    stats.failed.increment();
+                } else {
+                    stats.latency.recordMicros(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAt));
+                }
+            });
+            next += intervalNanos;
+        }
+    }
+
+    private static final class LoadStats {
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private void report(long startNanos) {
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+            long acknowledged = latency.count();
+            log.info("Load: sent={} acked={} failed={} rate={} msg/s, send latency p50={}us p90={}us p99={}us "
+                            + "p99.9={}us",
+                    sent.sum(), acknowledged, failed.sum(), Math.round(acknowledged / elapsedSeconds),
+                    latency.percentileMicros(50), latency.percentileMicros(90), latency.percentileMicros(99),
+                    latency.percentileMicros(99.9));
+        }
+    }
+
+    private static final class WeightedChoice<T extends Enum<T>> {
+        private final T[] values;
+        private final double[] cumulative;
+
+        private WeightedChoice(T[] values, double[] cumulative) {
+            this.values = values;
+            this.cumulative = cumulative;
+        }
+
+        private static <T extends Enum<T>> WeightedChoice<T> parse(T[] all, String weights) {
+            if (weights == null || weights.isBlank()) {
+                double[] cumulative = new double[all.length];
+                for (int i = 0; i < all.length; i++) {
+                    cumulative[i] = i + 1;
+                }
+                return new WeightedChoice<>(all, cumulative);
+            }
+            List<T> values = new ArrayList<>();
+            List<Double> cumulative = new ArrayList<>();
+            double total = 0;
+            for (String entry : weights.split(",")) {
+                String[] parts = entry.trim().split(":");
+                T value = Enum.valueOf(all[0].getDeclaringClass(), parts[0].trim().toUpperCase());
+                total += parts.length > 1 ? Double.parseDouble(parts[1].trim()) : 1.0;
+                values.add(value);
+                cumulative.add(total);
+            }
+            return new WeightedChoice<>(values.toArray(Arrays.copyOf(all, 0)),
+                    cumulative.stream().mapToDouble(Double::doubleValue).toArray());
+        }
+
+        private T next(ThreadLocalRandom random) {
+            double point = random.nextDouble(cumulative[cumulative.length - 1]);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (point < cumulative[i]) {
+                    return values[i];
+                }
+            }
+            return values[values.length - 1];
+        }
+    }
+}
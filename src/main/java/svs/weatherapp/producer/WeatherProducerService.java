@@ -3,6 +3,6 @@ package svs.weatherapp.producer;
 import org.springframework.scheduling.annotation.Scheduled;
 
 public interface WeatherProducerService {
-    @Scheduled(fixedRate = 2000)
+    @Scheduled(fixedRateString = "${app.producer.fixed-rate-ms:2000}")
     void sendWeather();
 }
\ No newline at end of file
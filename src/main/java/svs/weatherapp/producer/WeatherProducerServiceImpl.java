@@ -3,8 +3,8 @@ package svs.weatherapp.producer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import svs.weatherapp.model.City;
@@ -17,7 +17,8 @@ import java.util.Random;
 @Service
 @Slf4j
 @RequiredArgsConstructor
-@EnableScheduling
+// The demo producer would skew a load run, so it only runs when the load generator is off.
+@ConditionalOnProperty(name = "app.load.enabled", havingValue = "false", matchIfMissing = true)
 public class WeatherProducerServiceImpl implements WeatherProducerService {
 
     @Value("${app.kafka.topic}")
@@ -28,7 +29,7 @@ public class WeatherProducerServiceImpl implements WeatherProducerService {
     private final Random random = new Random();
 
     @Override
-    @Scheduled(fixedRate = 2000)
+    @Scheduled(fixedRateString = "${app.producer.fixed-rate-ms:2000}")
     public void sendWeather() {
         City city = City.values()[random.nextInt(City.values().length)];
         WeatherCondition condition = WeatherCondition.values()[random.nextInt(WeatherCondition.values().length)];
@@ -41,7 +42,7 @@ public class WeatherProducerServiceImpl implements WeatherProducerService {
                 .date(LocalDateTime.now())
                 .build();
 
-        kafkaTemplate.send(weatherTopic, city.name(), weather);
+        kafkaTemplate.send(weatherTopic, weather.stationName(), weather);
         log.info("Weather sent: {}", weather);
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package svs.weatherapp.serde;
+
+final class WeatherBinaryFormat {
+    static final byte VERSION = 1;
+    static final int SIZE = Byte.BYTES + Byte.BYTES + Byte.BYTES + Double.BYTES + Long.BYTES + Integer.BYTES;
+
+    // Readings from stations outside the City enum carry the station name instead of the city byte.
+    static final byte STATION_VERSION = 2;
+    static final int STATION_HEADER_SIZE = Byte.BYTES + Byte.BYTES + Double.BYTES + Long.BYTES + Integer.BYTES
+            + Short.BYTES;
+
+    private WeatherBinaryFormat() {
+    }
+}
@@ -0,0 +1,70 @@
+package svs.weatherapp.serde;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+public class WeatherDeserializer implements Deserializer<Weather> {
+    private static final City[] CITIES = City.values();
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+
+    @Override
+    public Weather deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length >= WeatherBinaryFormat.SIZE && data[0] == WeatherBinaryFormat.VERSION) {
+            return deserializeCity(data);
+        }
+        if (data.length >= WeatherBinaryFormat.STATION_HEADER_SIZE && data[0] == WeatherBinaryFormat.STATION_VERSION) {
+            return deserializeStation(data);
+        }
+        throw new SerializationException("Unsupported weather record: version " + (data.length > 0 ? data[0] : -1)
+                + ", " + data.length + " bytes");
+    }
+
+    private static Weather deserializeCity(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+        int city = buffer.get();
+        int condition = buffer.get();
+        if (city < 0 || city >= CITIES.length || condition < 0 || condition >= CONDITIONS.length) {
+            throw new SerializationException("Unknown city " + city + " or condition " + condition);
+        }
+        double temperature = buffer.getDouble();
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        return new Weather(CITIES[city], temperature, CONDITIONS[condition],
+                LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+    }
+
+    private static Weather deserializeStation(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+        int condition = buffer.get();
+        if (condition < 0 || condition >= CONDITIONS.length) {
+            throw new SerializationException("Unknown condition " + condition);
+        }
+        double temperature = buffer.getDouble();
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        int length = buffer.getShort();
+        if (length <= 0 || length != buffer.remaining()) {
+            throw new SerializationException("Station name of " + length + " bytes does not match the "
+                    + buffer.remaining() + " bytes left");
+        }
+        String station = new String(data, buffer.position(), length, StandardCharsets.UTF_8);
+        LocalDateTime date = LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        for (City city : CITIES) {
+            if (city.name().equals(station)) {
+                return new Weather(city, temperature, CONDITIONS[condition], date);
+            }
+        }
+        return new Weather(null, temperature, CONDITIONS[condition], date, station);
+    }
+}
@@ -0,0 +1,6 @@
+package svs.weatherapp.serde;
+
+public enum WeatherSerde {
+    JSON,
+    BINARY
+}
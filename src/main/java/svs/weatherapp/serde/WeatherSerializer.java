@@ -0,0 +1,46 @@
+package svs.weatherapp.serde;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import svs.weatherapp.model.Weather;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+
+public class WeatherSerializer implements Serializer<Weather> {
+
+    @Override
+    public byte[] serialize(String topic, Weather weather) {
+        if (weather == null) {
+            return null;
+        }
+        if (weather.stationName() == null || weather.getCondition() == null || weather.getDate() == null) {
+            throw new SerializationException("Weather is missing station, condition or date: " + weather);
+        }
+        if (weather.getCity() != null && (weather.getStation() == null
+                || weather.getStation().equals(weather.getCity().name()))) {
+            return ByteBuffer.allocate(WeatherBinaryFormat.SIZE)
+                    .put(WeatherBinaryFormat.VERSION)
+                    .put((byte) weather.getCity().ordinal())
+                    .put((byte) weather.getCondition().ordinal())
+                    .putDouble(weather.getTemperature())
+                    .putLong(weather.getDate().toEpochSecond(ZoneOffset.UTC))
+                    .putInt(weather.getDate().getNano())
+                    .array();
+        }
+        byte[] station = weather.getStation().getBytes(StandardCharsets.UTF_8);
+        if (station.length > Short.MAX_VALUE) {
+            throw new SerializationException("Station name is too long: " + station.length + " bytes");
+        }
+        return ByteBuffer.allocate(WeatherBinaryFormat.STATION_HEADER_SIZE + station.length)
+                .put(WeatherBinaryFormat.STATION_VERSION)
+                .put((byte) weather.getCondition().ordinal())
+                .putDouble(weather.getTemperature())
+                .putLong(weather.getDate().toEpochSecond(ZoneOffset.UTC))
+                .putInt(weather.getDate().getNano())
+                .putShort((short) station.length)
+                .put(station)
+                .array();
+    }
+}
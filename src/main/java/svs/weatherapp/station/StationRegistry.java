@@ -0,0 +1,130 @@
+package svs.weatherapp.station;
+
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Dictionary of station names to dense int ids. The City values are registered first, in ordinal order, so their
+// ids match the city codes already stored in segment logs and checkpoints. Names are kept in an append-only paged
+// array, so both directions of the lookup cost the same however many stations are registered.
+public final class StationRegistry {
+    public static final int MAX_STATIONS = 1 << 20;
+    public static final int MAX_NAME_LENGTH = 255;
+
+    private static final City[] CITIES = City.values();
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final StationRegistry GLOBAL = new StationRegistry();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<StationListener> listeners = new CopyOnWriteArrayList<>();
+    private final Lock lock = new ReentrantLock();
+
+    private volatile String[][] pages = new String[16][];
+    private volatile int size;
+
+    public StationRegistry() {
+        for (City city : CITIES) {
+            id(city.name());
+        }
+    }
+
+    public static StationRegistry global() {
+        return GLOBAL;
+    }
+
+    public int id(Weather weather) {
+        return id(weather.stationName());
+    }
+
+    // Registers the name on first use. Listeners hear about new stations in id order.
+    public int id(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid station name: " + name);
+        }
+        lock.lock();
+        try {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            int next = size;
+            if (next == MAX_STATIONS) {
+                throw new IllegalStateException("Station registry is full at " + MAX_STATIONS + " stations");
+            }
+            String[][] current = pages;
+            if ((next >> PAGE_BITS) == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            if (current[next >> PAGE_BITS] == null) {
+                current[next >> PAGE_BITS] = new String[PAGE_SIZE];
+            }
+            current[next >> PAGE_BITS][next & PAGE_MASK] = name;
+            pages = current;
+            size = next + 1;
+            ids.put(name, next);
+            for (StationListener listener : listeners) {
+                listener.registered(next, name);
+            }
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static boolean isValidName(String name) {
+        return name != null && !name.isBlank() && name.length() <= MAX_NAME_LENGTH
+                && name.chars().noneMatch(Character::isISOControl);
+    }
+
+    public int find(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown station id " + id);
+        }
+        return pages[id >> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    // The City a station id stands for, or null for stations registered at runtime.
+    public City city(int id) {
+        return id < CITIES.length ? CITIES[id] : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cityCount() {
+        return CITIES.length;
+    }
+
+    public void addListener(StationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(StationListener listener) {
+        listeners.remove(listener);
+    }
+
+    @FunctionalInterface
+    public interface StationListener {
+        void registered(int id, String name);
+    }
+}
@@ -0,0 +1,15 @@
+package svs.weatherapp.storage;
+
+import lombok.Value;
+import svs.weatherapp.analytics.CityStats;
+
+import java.util.Map;
+
+@Value
+public class ShardCheckpoint {
+    int partition;
+    long offset;
+    long logRecords;
+    // Only the stations the shard has readings for, by name, since station ids are assigned per process.
+    Map<String, CityStats> stationStats;
+}
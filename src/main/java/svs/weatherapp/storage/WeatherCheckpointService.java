@@ -0,0 +1,14 @@
+package svs.weatherapp.storage;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface WeatherCheckpointService {
+    boolean isEnabled();
+
+    List<Integer> storedPartitions();
+
+    Optional<ShardCheckpoint> read(int partition);
+
+    void write(ShardCheckpoint checkpoint);
+}
@@ -0,0 +1,207 @@
+package svs.weatherapp.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import svs.weatherapp.analytics.CityStats;
+import svs.weatherapp.analytics.TemperatureHistogram;
+import svs.weatherapp.model.City;
+import svs.weatherapp.station.StationRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+@Service
+@Slf4j
+public class WeatherCheckpointServiceImpl implements WeatherCheckpointService {
+    private static final int MAGIC = 0x57434B31;
+    private static final byte FORMAT_VERSION = 3;
+    private static final byte FORMAT_VERSION_WITHOUT_STATION_NAMES = 2;
+    private static final byte FORMAT_VERSION_WITHOUT_HISTOGRAMS = 1;
+    private static final String PREFIX = "partition-";
+    private static final String SUFFIX = ".ckpt";
+    private static final City[] CITIES = City.values();
+
+    @Value("${app.checkpoint.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.checkpoint.directory:data/checkpoints}")
+    private Path directory;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public List<Integer> storedPartitions() {
+        if (!enabled || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list checkpoints in " + directory, e);
+        }
+    }
+
+    @Override
+    public Optional<ShardCheckpoint> read(int partition) {
+        Path path = path(partition);
+        try {
+            return Optional.ofNullable(decode(Files.readAllBytes(path), partition));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Checkpoint {} cannot be read and is ignored", path, e);
+            return Optional.empty();
+        }
+    }
+
+    // Written to a temporary file and moved over the previous checkpoint, so a crash leaves either
+    // the old or the new checkpoint in place.
+    @Override
+    public void write(ShardCheckpoint checkpoint) {
+        Path path = path(checkpoint.getPartition());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(encode(checkpoint)));
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + path, e);
+        }
+    }
+
+    private Path path(int partition) {
+        return directory.resolve(PREFIX + partition + SUFFIX);
+    }
+
+    static byte[] encode(ShardCheckpoint checkpoint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeInt(checkpoint.getPartition());
+        out.writeLong(checkpoint.getOffset());
+        out.writeLong(checkpoint.getLogRecords());
+        Map<String, CityStats> stationStats = checkpoint.getStationStats();
+        out.writeInt(stationStats.size());
+        for (Map.Entry<String, CityStats> entry : stationStats.entrySet()) {
+            CityStats stats = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeLong(stats.getSunnyCount());
+            out.writeLong(stats.getRainyCount());
+            out.writeLong(stats.getCloudyCount());
+            out.writeLong(stats.getTemperatureCount());
+            out.writeDouble(stats.getTemperatureSum());
+            out.writeDouble(stats.getMinTemperature());
+            out.writeDouble(stats.getMaxTemperature());
+            writeHistogram(out, stats.getHistogram());
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    static ShardCheckpoint decode(byte[] data, int partition) throws IOException {
+        if (data.length < Integer.BYTES * 2) {
+            throw new IOException("Checkpoint is truncated");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(data, 0, data.length - Integer.BYTES);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Unknown checkpoint format");
+        }
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION && version != FORMAT_VERSION_WITHOUT_STATION_NAMES
+                && version != FORMAT_VERSION_WITHOUT_HISTOGRAMS) {
+            throw new IOException("Unknown checkpoint format");
+        }
+        if (ByteBuffer.wrap(data, data.length - Integer.BYTES, Integer.BYTES).getInt() != (int) crc.getValue()) {
+            throw new IOException("Checkpoint checksum mismatch");
+        }
+        if (in.readInt() != partition) {
+            throw new IOException("Checkpoint belongs to another partition");
+        }
+        long offset = in.readLong();
+        long logRecords = in.readLong();
+        int cityCount = in.readInt();
+        if (version != FORMAT_VERSION && cityCount != CITIES.length) {
+            throw new IOException("Checkpoint was written for " + cityCount + " cities");
+        }
+        if (cityCount < 0 || cityCount > StationRegistry.MAX_STATIONS) {
+            throw new IOException("Checkpoint was written for " + cityCount + " stations");
+        }
+        // Older formats are indexed by City ordinal. Stations without readings, which earlier writers included,
+        // are left out.
+        Map<String, CityStats> stationStats = new LinkedHashMap<>();
+        for (int entry = 0; entry < cityCount; entry++) {
+            String name = version == FORMAT_VERSION ? in.readUTF() : CITIES[entry].name();
+            CityStats stats = new CityStats(in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                    in.readDouble(), in.readDouble(), in.readDouble(),
+                    version == FORMAT_VERSION_WITHOUT_HISTOGRAMS ? TemperatureHistogram.EMPTY : readHistogram(in));
+            if (stats.getTemperatureCount() > 0) {
+                stationStats.merge(name, stats, CityStats::merge);
+            }
+        }
+        return new ShardCheckpoint(partition, offset, logRecords, stationStats);
+    }
+
+    // Only the occupied bins are written, as (bin, count) pairs.
+    private static void writeHistogram(DataOutputStream out, TemperatureHistogram histogram) throws IOException {
+        int occupied = 0;
+        for (int bin = 0; bin < TemperatureHistogram.BINS; bin++) {
+            if (histogram.count(bin) != 0) {
+                occupied++;
+            }
+        }
+        out.writeShort(occupied);
+        for (int bin = 0; bin < TemperatureHistogram.BINS; bin++) {
+            if (histogram.count(bin) != 0) {
+                out.writeShort(bin);
+                out.writeLong(histogram.count(bin));
+            }
+        }
+    }
+
+    private static TemperatureHistogram readHistogram(DataInputStream in) throws IOException {
+        long[] bins = new long[TemperatureHistogram.BINS];
+        int occupied = in.readUnsignedShort();
+        for (int i = 0; i < occupied; i++) {
+            int bin = in.readUnsignedShort();
+            if (bin >= bins.length) {
+                throw new IOException("Checkpoint histogram bin " + bin + " is out of range");
+            }
+            bins[bin] = in.readLong();
+        }
+        return TemperatureHistogram.of(bins);
+    }
+}
@@ -0,0 +1,156 @@
+package svs.weatherapp.storage;
+
+import svs.weatherapp.analytics.ReadingConsumer;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One fixed-size, memory-mapped file of fixed-size records. A record becomes visible once its marker is written,
+// so a torn write at the tail is ignored on recovery. The last record of each consumed batch is re-marked as a
+// batch end and carries the Kafka offset of that batch; legacy segments have shorter records without offsets.
+class WeatherSegment implements AutoCloseable {
+    static final int RECORD_SIZE = 40;
+    static final int LEGACY_RECORD_SIZE = 32;
+
+    private static final int SECOND_OFFSET = 0;
+    private static final int TEMPERATURE_OFFSET = 8;
+    private static final int NANO_OFFSET = 16;
+    private static final int CITY_OFFSET = 20;
+    private static final int CONDITION_OFFSET = 24;
+    private static final int MARKER_OFFSET = 28;
+    private static final int KAFKA_OFFSET_OFFSET = 32;
+    private static final int MARKER = 0x57454131;
+    private static final int BATCH_END_MARKER = 0x57454132;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int recordSize;
+
+    private volatile int size;
+
+    // Records up to and including the last batch end, and that batch's Kafka offset, or -1.
+    private int batchEnd;
+    private long lastOffset = -1;
+
+    private WeatherSegment(Path path, FileChannel channel, MappedByteBuffer buffer, int capacity, int recordSize) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.recordSize = recordSize;
+    }
+
+    static WeatherSegment open(Path path, int capacity, boolean legacy) throws IOException {
+        int recordSize = legacy ? LEGACY_RECORD_SIZE : RECORD_SIZE;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * recordSize);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        WeatherSegment segment = new WeatherSegment(path, channel, buffer, capacity, recordSize);
+        segment.recover();
+        return segment;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isLegacy() {
+        return recordSize == LEGACY_RECORD_SIZE;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    int batchEnd() {
+        return batchEnd;
+    }
+
+    long lastOffset() {
+        return lastOffset;
+    }
+
+    // Single writer only.
+    void append(long epochSecond, int nano, int cityCode, int conditionCode, double temperature) {
+        int position = size * recordSize;
+        buffer.putLong(position + SECOND_OFFSET, epochSecond);
+        buffer.putDouble(position + TEMPERATURE_OFFSET, temperature);
+        buffer.putInt(position + NANO_OFFSET, nano);
+        buffer.putInt(position + CITY_OFFSET, cityCode);
+        buffer.putInt(position + CONDITION_OFFSET, conditionCode);
+        buffer.putInt(position + MARKER_OFFSET, MARKER);
+        size++;
+    }
+
+    // Marks the last record as the end of a batch consumed up to the given offset. Single writer only.
+    void endBatch(long offset) {
+        int position = (size - 1) * recordSize;
+        buffer.putLong(position + KAFKA_OFFSET_OFFSET, offset);
+        buffer.putInt(position + MARKER_OFFSET, BATCH_END_MARKER);
+        batchEnd = size;
+        lastOffset = offset;
+    }
+
+    void scan(ReadingConsumer consumer) {
+        int end = size;
+        for (int i = 0; i < end; i++) {
+            int position = i * recordSize;
+            consumer.accept(buffer.getLong(position + SECOND_OFFSET), buffer.getInt(position + NANO_OFFSET),
+                    buffer.getInt(position + CITY_OFFSET), buffer.getInt(position + CONDITION_OFFSET),
+                    buffer.getDouble(position + TEMPERATURE_OFFSET));
+        }
+    }
+
+    // Drops records from the given index on; their markers are cleared so recovery stops there too.
+    void truncate(int records) {
+        for (int i = records; i < size; i++) {
+            buffer.putInt(i * recordSize + MARKER_OFFSET, 0);
+        }
+        size = Math.min(size, records);
+        recover();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void recover() {
+        int count = 0;
+        batchEnd = 0;
+        lastOffset = -1;
+        while (count < capacity) {
+            int marker = buffer.getInt(count * recordSize + MARKER_OFFSET);
+            if (marker == BATCH_END_MARKER && !isLegacy()) {
+                batchEnd = count + 1;
+                lastOffset = buffer.getLong(count * recordSize + KAFKA_OFFSET_OFFSET);
+            } else if (marker != MARKER) {
+                break;
+            }
+            count++;
+        }
+        size = count;
+    }
+}
@@ -0,0 +1,175 @@
+package svs.weatherapp.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import svs.weatherapp.analytics.ReadingConsumer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+// Append-only log of readings for one partition, split into memory-mapped segments named by the
+// index of their first record. Appends come from a single writer; scans may run concurrently.
+// Each consumed batch ends with a record carrying its Kafka offset, so the log knows where consumption
+// resumes and drops the records of a batch that was cut short.
+@Slf4j
+public class WeatherSegmentLog implements AutoCloseable {
+    private static final String SEGMENT_SUFFIX = ".seg2";
+    private static final String LEGACY_SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final List<WeatherSegment> segments = new CopyOnWriteArrayList<>();
+
+    private long size;
+
+    private WeatherSegmentLog(Path directory, int segmentRecords) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+    }
+
+    public static WeatherSegmentLog open(Path directory, int segmentRecords) {
+        WeatherSegmentLog segmentLog = new WeatherSegmentLog(directory, segmentRecords);
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path path : files.filter(WeatherSegmentLog::isSegment).sorted().toList()) {
+                    boolean legacy = path.getFileName().toString().endsWith(LEGACY_SEGMENT_SUFFIX);
+                    WeatherSegment segment = WeatherSegment.open(path, segmentRecords, legacy);
+                    segmentLog.segments.add(segment);
+                    segmentLog.size += segment.size();
+                }
+            }
+        } catch (IOException e) {
+            segmentLog.closeQuietly();
+            throw new UncheckedIOException("Cannot open segment log in " + directory, e);
+        }
+        segmentLog.dropUnfinishedBatch();
+        return segmentLog;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // Kafka offset of the last batch that ended in the log, or -1.
+    public long lastOffset() {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (segments.get(i).batchEnd() > 0) {
+                return segments.get(i).lastOffset();
+            }
+        }
+        return -1;
+    }
+
+    public void append(long epochSecond, int nano, int cityCode, int conditionCode, double temperature) {
+        WeatherSegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.isFull() || segment.isLegacy()) {
+            segment = roll(segment);
+        }
+        segment.append(epochSecond, nano, cityCode, conditionCode, temperature);
+        size++;
+    }
+
+    // Records the batch appended since the last one as consumed up to the given offset. A batch without readings
+    // moves the offset of the previous batch end forward instead.
+    public void endBatch(long offset) {
+        WeatherSegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment != null && segment.size() > 0 && !segment.isLegacy()) {
+            segment.endBatch(offset);
+        }
+    }
+
+    public void scan(ReadingConsumer consumer) {
+        for (WeatherSegment segment : segments) {
+            segment.scan(consumer);
+        }
+    }
+
+    // Single writer only; concurrent scans may still see the dropped tail.
+    public void truncate(long records) {
+        if (records >= size) {
+            return;
+        }
+        long start = 0;
+        for (WeatherSegment segment : List.copyOf(segments)) {
+            long end = start + segment.size();
+            if (start >= records) {
+                segments.remove(segment);
+                try {
+                    segment.delete();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot delete segment " + segment.getPath(), e);
+                }
+            } else if (end > records) {
+                segment.truncate((int) (records - start));
+                segment.force();
+            }
+            start = end;
+        }
+        size = records;
+    }
+
+    public void force() {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).force();
+        }
+    }
+
+    @Override
+    public void close() {
+        closeQuietly();
+        segments.clear();
+    }
+
+    // Records after the last batch end belong to a batch the process did not finish applying; they are consumed
+    // again from the offset before them.
+    private void dropUnfinishedBatch() {
+        long start = size;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            WeatherSegment segment = segments.get(i);
+            start -= segment.size();
+            if (segment.batchEnd() > 0) {
+                long records = start + segment.batchEnd();
+                if (records < size) {
+                    log.warn("Dropping {} records of an unfinished batch from {}", size - records, directory);
+                    truncate(records);
+                }
+                return;
+            }
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(SEGMENT_SUFFIX) || name.endsWith(LEGACY_SEGMENT_SUFFIX);
+    }
+
+    private WeatherSegment roll(WeatherSegment full) {
+        if (full != null) {
+            full.force();
+        }
+        Path path = directory.resolve(String.format("%020d%s", size, SEGMENT_SUFFIX));
+        try {
+            WeatherSegment segment = WeatherSegment.open(path, segmentRecords, false);
+            segments.add(segment);
+            log.debug("Segment rolled: {}", path);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create segment " + path, e);
+        }
+    }
+
+    private void closeQuietly() {
+        for (WeatherSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Cannot close segment {}", segment.getPath(), e);
+            }
+        }
+    }
+}
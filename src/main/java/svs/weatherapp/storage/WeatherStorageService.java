@@ -0,0 +1,11 @@
+package svs.weatherapp.storage;
+
+import java.util.List;
+
+public interface WeatherStorageService {
+    boolean isEnabled();
+
+    List<Integer> storedPartitions();
+
+    WeatherSegmentLog openPartition(int partition);
+}
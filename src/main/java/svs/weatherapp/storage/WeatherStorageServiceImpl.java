@@ -0,0 +1,129 @@
+package svs.weatherapp.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import svs.weatherapp.station.StationRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class WeatherStorageServiceImpl implements WeatherStorageService {
+    private static final String PARTITION_PREFIX = "partition-";
+    private static final String STATIONS_FILE = "stations.txt";
+
+    @Value("${app.storage.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.storage.directory:data/weather}")
+    private Path directory;
+
+    @Value("${app.storage.segment-records:1048576}")
+    private int segmentRecords;
+
+    private final Map<Integer, WeatherSegmentLog> logs = new ConcurrentHashMap<>();
+
+    private final StationRegistry registry = StationRegistry.global();
+
+    private final StationRegistry.StationListener stationWriter = this::writeStation;
+
+    private FileChannel stations;
+
+    // Segment records keep station ids, so the names behind them are kept next to the logs, one per line in id
+    // order after the City stations. Each new station is forced to disk before any record can use its id.
+    @PostConstruct
+    public void openStations() {
+        if (!enabled) {
+            return;
+        }
+        Path path = directory.resolve(STATIONS_FILE);
+        try {
+            Files.createDirectories(directory);
+            List<String> names = Files.exists(path) ? Files.readAllLines(path, StandardCharsets.UTF_8) : List.of();
+            for (int line = 0; line < names.size(); line++) {
+                int expected = registry.cityCount() + line;
+                if (registry.id(names.get(line)) != expected) {
+                    throw new IllegalStateException("Station " + names.get(line) + " in " + path
+                            + " does not have id " + expected);
+                }
+            }
+            if (registry.size() != registry.cityCount() + names.size()) {
+                throw new IllegalStateException("Stations were registered before " + path + " was loaded");
+            }
+            log.info("Station dictionary {} loaded with {} stations", path, names.size());
+            stations = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open station dictionary " + path, e);
+        }
+        registry.addListener(stationWriter);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public List<Integer> storedPartitions() {
+        if (!enabled || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> partitions = Files.list(directory)) {
+            return partitions.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PARTITION_PREFIX))
+                    .map(name -> Integer.parseInt(name.substring(PARTITION_PREFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list partitions in " + directory, e);
+        }
+    }
+
+    @Override
+    public WeatherSegmentLog openPartition(int partition) {
+        return logs.computeIfAbsent(partition, p -> {
+            WeatherSegmentLog segmentLog = WeatherSegmentLog.open(directory.resolve(PARTITION_PREFIX + p), segmentRecords);
+            log.info("Segment log for partition {} opened with {} records", p, segmentLog.size());
+            return segmentLog;
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        logs.values().forEach(WeatherSegmentLog::close);
+        logs.clear();
+        registry.removeListener(stationWriter);
+        if (stations != null) {
+            try {
+                stations.close();
+            } catch (IOException e) {
+                log.warn("Station dictionary cannot be closed", e);
+            }
+            stations = null;
+        }
+    }
+
+    private void writeStation(int id, String name) {
+        try {
+            stations.write(ByteBuffer.wrap((name + "\n").getBytes(StandardCharsets.UTF_8)));
+            stations.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot add station " + name + " to the dictionary", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package svs.weatherapp.stream;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface WeatherStreamService {
+    SseEmitter subscribe();
+
+    void publish();
+}
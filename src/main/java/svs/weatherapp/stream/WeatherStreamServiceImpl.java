@@ -0,0 +1,174 @@
+package svs.weatherapp.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import svs.weatherapp.analytics.WeatherAnalyticsService;
+import svs.weatherapp.dto.WeatherAnalyticsDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One scheduled publisher computes the changed cities once per interval and serializes each of them once;
+// subscribers only receive the pre-serialized JSON. A slow subscriber gets its pending cities merged, so it
+// always ends up with the latest stats, and its sends run on a virtual thread that never blocks the others.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class WeatherStreamServiceImpl implements WeatherStreamService {
+    private static final String EVENT_NAME = "stats";
+
+    @Value("${app.stream.timeout-ms:0}")
+    private long timeoutMs;
+
+    private final WeatherAnalyticsService weatherAnalyticsService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, WeatherAnalyticsDto> lastStats = new LinkedHashMap<>();
+
+    private final Map<String, String> lastJson = new ConcurrentHashMap<>();
+
+    private final Lock publishLock = new ReentrantLock();
+
+    private long lastVersion = -1;
+
+    @Override
+    public SseEmitter subscribe() {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs));
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        // Seeding and registering under the publish lock means no publish can slip in between them, so a
+        // newer value is never overwritten by the older snapshot.
+        publishLock.lock();
+        try {
+            offer(subscriber, Map.copyOf(lastJson));
+            subscribers.add(subscriber);
+        } finally {
+            publishLock.unlock();
+        }
+        log.info("Stats stream subscribed, {} subscribers", subscribers.size());
+        return emitter;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.stream.interval-ms:1000}")
+    public void publish() {
+        publishLock.lock();
+        try {
+            publishChanges();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private void publishChanges() {
+        long version = weatherAnalyticsService.getDataVersion();
+        if (version == lastVersion) {
+            return;
+        }
+        lastVersion = version;
+        Map<String, String> changed = new LinkedHashMap<>();
+        for (WeatherAnalyticsDto stats : weatherAnalyticsService.getCityStats()) {
+            if (!stats.equals(lastStats.put(stats.getCity(), stats))) {
+                changed.put(stats.getCity(), toJson(stats));
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        lastJson.putAll(changed);
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, changed);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        senders.shutdown();
+    }
+
+    private void offer(Subscriber subscriber, Map<String, String> cities) {
+        if (cities.isEmpty()) {
+            return;
+        }
+        subscriber.lock.lock();
+        try {
+            subscriber.pending.putAll(cities);
+            if (subscriber.draining) {
+                return;
+            }
+            subscriber.draining = true;
+        } finally {
+            subscriber.lock.unlock();
+        }
+        senders.execute(() -> drain(subscriber));
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            String data;
+            subscriber.lock.lock();
+            try {
+                if (subscriber.pending.isEmpty()) {
+                    subscriber.draining = false;
+                    return;
+                }
+                data = "[" + String.join(",", subscriber.pending.values()) + "]";
+                subscriber.pending.clear();
+            } finally {
+                subscriber.lock.unlock();
+            }
+            try {
+                subscriber.emitter.send(SseEmitter.event().name(EVENT_NAME).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+
+    private String toJson(WeatherAnalyticsDto stats) {
+        try {
+            return objectMapper.writeValueAsString(stats);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Map<String, String> pending = new LinkedHashMap<>();
+        private final Lock lock = new ReentrantLock();
+        private boolean draining;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
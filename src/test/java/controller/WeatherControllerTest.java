@@ -1,22 +1,34 @@
 package controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import svs.weatherapp.analytics.WeatherAnalyticsService;
 import svs.weatherapp.controller.WeatherController;
+import svs.weatherapp.dto.RecentWeatherDto;
 import svs.weatherapp.dto.WeatherAnalyticsDto;
+import svs.weatherapp.dto.WeatherReadingDto;
 import svs.weatherapp.dto.WeatherSummaryDto;
+import svs.weatherapp.dto.WindowStatsDto;
+import svs.weatherapp.metrics.WeatherMetrics;
+import svs.weatherapp.stream.WeatherStreamService;
 
 import java.util.List;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -27,6 +39,15 @@ public class WeatherControllerTest {
     @Mock
     private WeatherAnalyticsService weatherAnalyticsService;
 
+    @Spy
+    private WeatherMetrics weatherMetrics = new WeatherMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private WeatherStreamService weatherStreamService;
+
     @InjectMocks
     private WeatherController weatherController;
 
@@ -64,6 +85,82 @@ public class WeatherControllerTest {
                 .andExpect(jsonPath("$[0].averageTemperature", is(10.0)));
     }
 
+    @Test
+    void getStats_withMatchingETag_ShouldReturnNotModifiedWithoutRecomputing() throws Exception {
+        when(weatherAnalyticsService.getDataVersion()).thenReturn(7L);
+        when(weatherAnalyticsService.getCityStats()).thenReturn(List.of(
+                WeatherAnalyticsDto.builder().city("PITER").sunnyDays(1).build()));
+
+        String etag = mockMvc.perform(get("/weather/stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$[0].city", is("PITER")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/weather/stats").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/weather/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].city", is("PITER")));
+        verify(weatherAnalyticsService, times(1)).getCityStats();
+
+        when(weatherAnalyticsService.getDataVersion()).thenReturn(8L);
+        mockMvc.perform(get("/weather/stats").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        verify(weatherAnalyticsService, times(2)).getCityStats();
+        assertEquals(4, weatherMetrics.getStatsTimer().count());
+    }
+
+    @Test
+    void getRecentStats_ShouldReturnWindows() throws Exception {
+        when(weatherAnalyticsService.getRecentStats()).thenReturn(List.of(
+                RecentWeatherDto.builder()
+                        .city("TYUMEN")
+                        .latestDate("2025-07-13T10:15:30")
+                        .latestCondition("RAINY")
+                        .latestTemperature(12.5)
+                        .windows(List.of(WindowStatsDto.builder()
+                                .window("5m")
+                                .totalMeasurements(4)
+                                .rainyDays(3)
+                                .averageTemperature(11.0)
+                                .build()))
+                        .build()));
+
+        mockMvc.perform(get("/weather/stats/recent"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].city", is("TYUMEN")))
+                .andExpect(jsonPath("$[0].latestCondition", is("RAINY")))
+                .andExpect(jsonPath("$[0].latestTemperature", is(12.5)))
+                .andExpect(jsonPath("$[0].windows[0].window", is("5m")))
+                .andExpect(jsonPath("$[0].windows[0].totalMeasurements", is(4)))
+                .andExpect(jsonPath("$[0].windows[0].rainyDays", is(3)));
+    }
+
+    @Test
+    void getSummaryForPeriod_withTop_ShouldReturnExtremeReadings() throws Exception {
+        WeatherSummaryDto summary = WeatherSummaryDto.builder()
+                .hottestReadings(List.of(WeatherReadingDto.builder()
+                        .city("MAGADAN").date("2025-07-13T14:00").condition("SUNNY").temperature(31.5).build()))
+                .build();
+        when(weatherAnalyticsService.getSummaryForPeriod(any(), any(), eq(3))).thenReturn(summary);
+
+        mockMvc.perform(get("/weather/summary/period")
+                        .param("start", "2025-07-10T08:00:00")
+                        .param("end", "2025-07-11T20:30:00")
+                        .param("top", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hottestReadings[0].city", is("MAGADAN")))
+                .andExpect(jsonPath("$.hottestReadings[0].temperature", is(31.5)))
+                .andExpect(jsonPath("$.coldestReadings.length()", is(0)));
+
+        mockMvc.perform(get("/weather/summary/period")
+                        .param("start", "2025-07-10T08:00:00")
+                        .param("end", "2025-07-11T20:30:00")
+                        .param("top", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getSummaryForPeriod_ShouldReturnSummary() throws Exception {
         WeatherSummaryDto summary = WeatherSummaryDto.builder()
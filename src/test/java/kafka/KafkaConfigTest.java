@@ -0,0 +1,27 @@
+package kafka;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import svs.weatherapp.config.KafkaConfig;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.serde.WeatherSerde;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class KafkaConfigTest {
+
+    @Test
+    void consumerFactory_turnsUndecodablePayloadsIntoNullValues() {
+        KafkaConfig config = new KafkaConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", "localhost:9092");
+        ReflectionTestUtils.setField(config, "weatherGroupId", "weather-group");
+        ReflectionTestUtils.setField(config, "maxPollRecords", 500);
+        ReflectionTestUtils.setField(config, "serde", WeatherSerde.BINARY);
+
+        DefaultKafkaConsumerFactory<String, Weather> consumerFactory =
+                (DefaultKafkaConsumerFactory<String, Weather>) config.consumerFactory();
+
+        assertNull(consumerFactory.getValueDeserializer().deserialize("weather-topic", new byte[]{42, 1, 2}));
+    }
+}
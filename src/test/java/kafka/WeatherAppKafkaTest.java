@@ -6,13 +6,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.kafka.test.utils.KafkaTestUtils;
 import org.springframework.kafka.test.EmbeddedKafkaBroker;
 import svs.weatherapp.model.City;
 import svs.weatherapp.model.Weather;
 import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.serde.WeatherDeserializer;
 
 import java.time.LocalDateTime;
 
@@ -34,7 +34,7 @@ public class WeatherAppKafkaTest {
         var consumerFactory = new DefaultKafkaConsumerFactory<>(
                 consumerProps,
                 new StringDeserializer(),
-                new JsonDeserializer<>(Weather.class, false)
+                new WeatherDeserializer()
         );
         var consumer = consumerFactory.createConsumer();
         embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "test-weather-topic");
@@ -51,6 +51,7 @@ public class WeatherAppKafkaTest {
         var record = KafkaTestUtils.getSingleRecord(consumer, "test-weather-topic");
 
         assertThat(record.value().getCity()).isEqualTo(City.MOSCOW);
+        assertThat(record.value()).isEqualTo(weather);
 
         consumer.close();
     }
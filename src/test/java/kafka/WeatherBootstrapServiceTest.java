@@ -0,0 +1,94 @@
+package kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import svs.weatherapp.analytics.WeatherAnalyticsServiceImpl;
+import svs.weatherapp.consumer.WeatherBootstrapServiceImpl;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WeatherBootstrapServiceTest {
+    private static final String TOPIC = "weather-topic";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void catchUp_replaysEveryPartitionUpToTheHighWatermarkAndCommits() {
+        TopicPartition first = new TopicPartition(TOPIC, 0);
+        TopicPartition second = new TopicPartition(TOPIC, 1);
+        MockConsumer<String, Weather> metadata = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        metadata.updatePartitions(TOPIC, List.of(partitionInfo(0), partitionInfo(1)));
+        metadata.updateEndOffsets(Map.of(first, 3L, second, 2L));
+
+        // kept open after catch-up so the committed offsets can be checked
+        MockConsumer<String, Weather> worker = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void close() {
+            }
+        };
+        worker.updateBeginningOffsets(Map.of(first, 0L, second, 0L));
+        worker.updateEndOffsets(Map.of(first, 3L, second, 2L));
+        worker.schedulePollTask(() -> {
+            for (int offset = 0; offset < 3; offset++) {
+                worker.addRecord(new ConsumerRecord<>(TOPIC, 0, offset, "MOSCOW", weather(City.MOSCOW, offset)));
+            }
+            for (int offset = 0; offset < 2; offset++) {
+                worker.addRecord(new ConsumerRecord<>(TOPIC, 1, offset, "PITER", weather(City.PITER, offset)));
+            }
+        });
+
+        ConsumerFactory<String, Weather> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer(anyString(), anyString(), anyString(), any(Properties.class)))
+                .thenReturn(metadata, worker);
+
+        WeatherAnalyticsServiceImpl analyticsService = new WeatherAnalyticsServiceImpl();
+        WeatherBootstrapServiceImpl bootstrapService = new WeatherBootstrapServiceImpl(consumerFactory,
+                mock(KafkaListenerEndpointRegistry.class), analyticsService);
+        ReflectionTestUtils.setField(bootstrapService, "weatherTopic", TOPIC);
+        ReflectionTestUtils.setField(bootstrapService, "weatherGroupId", "weather-group");
+        ReflectionTestUtils.setField(bootstrapService, "threads", 1);
+        ReflectionTestUtils.setField(bootstrapService, "reportIntervalSeconds", 1L);
+
+        bootstrapService.catchUp();
+
+        assertEquals(2, analyticsService.lastAppliedOffset(0));
+        assertEquals(1, analyticsService.lastAppliedOffset(1));
+        assertEquals(3, analyticsService.getCityStats().get(City.MOSCOW.ordinal()).getSunnyDays());
+        assertEquals(2, analyticsService.getCityStats().get(City.PITER.ordinal()).getSunnyDays());
+        assertEquals(3L, worker.committed(Set.of(first)).get(first).offset());
+        assertEquals(2L, worker.committed(Set.of(second)).get(second).offset());
+    }
+
+    private static PartitionInfo partitionInfo(int partition) {
+        return new PartitionInfo(TOPIC, partition, Node.noNode(), new Node[0], new Node[0]);
+    }
+
+    private static Weather weather(City city, int minute) {
+        return Weather.builder()
+                .city(city)
+                .temperature(10.0 + minute)
+                .condition(WeatherCondition.SUNNY)
+                .date(LocalDateTime.of(2024, 1, 1, 12, minute))
+                .build();
+    }
+}
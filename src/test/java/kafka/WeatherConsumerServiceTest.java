@@ -0,0 +1,70 @@
+package kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import svs.weatherapp.analytics.WeatherAnalyticsService;
+import svs.weatherapp.consumer.WeatherConsumerServiceImpl;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class WeatherConsumerServiceTest {
+    private static final String TOPIC = "weather-topic";
+
+    @Test
+    void listen_skipsNullValuesButKeepsTheirOffsets() {
+        WeatherAnalyticsService analyticsService = mock(WeatherAnalyticsService.class);
+        WeatherConsumerServiceImpl consumerService = new WeatherConsumerServiceImpl(analyticsService);
+        Weather moscow = weather(City.MOSCOW);
+        Weather piter = weather(City.PITER);
+
+        consumerService.listen(List.of(
+                new ConsumerRecord<>(TOPIC, 0, 10, "MOSCOW", moscow),
+                new ConsumerRecord<>(TOPIC, 0, 11, "MOSCOW", null),
+                new ConsumerRecord<>(TOPIC, 1, 4, "PITER", null),
+                new ConsumerRecord<>(TOPIC, 2, 7, "PITER", piter)));
+
+        verify(analyticsService).processWeather(0, List.of(moscow), 11);
+        verify(analyticsService).processWeather(1, List.of(), 4);
+        verify(analyticsService).processWeather(2, List.of(piter), 7);
+        verifyNoMoreInteractions(analyticsService);
+    }
+
+    @Test
+    void onPartitionsAssigned_resumesEveryAssignmentAfterTheLastAppliedOffset() {
+        WeatherAnalyticsService analyticsService = mock(WeatherAnalyticsService.class);
+        WeatherConsumerServiceImpl consumerService = new WeatherConsumerServiceImpl(analyticsService);
+        ConsumerSeekAware.ConsumerSeekCallback callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+        TopicPartition first = new TopicPartition(TOPIC, 0);
+        TopicPartition second = new TopicPartition(TOPIC, 1);
+        when(analyticsService.lastAppliedOffset(0)).thenReturn(41L, 99L);
+        when(analyticsService.lastAppliedOffset(1)).thenReturn(-1L);
+
+        consumerService.onPartitionsAssigned(Map.of(first, 30L, second, 5L), callback);
+        consumerService.onPartitionsAssigned(Map.of(first, 120L), callback);
+
+        verify(callback).seek(TOPIC, 0, 42);
+        verify(callback).seek(TOPIC, 0, 100);
+        verifyNoMoreInteractions(callback);
+    }
+
+    private static Weather weather(City city) {
+        return Weather.builder()
+                .city(city)
+                .temperature(12.5)
+                .condition(WeatherCondition.SUNNY)
+                .date(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package kafka;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import svs.weatherapp.analytics.WeatherAnalyticsService;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(
+        classes = svs.weatherapp.WeatherAppApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.profiles.active=test",
+                "spring.threads.virtual.enabled=true",
+                "app.kafka.topic=virtual-weather-topic"
+        }
+)
+@EmbeddedKafka(partitions = 1, topics = "virtual-weather-topic")
+public class WeatherVirtualThreadsTest {
+
+    @MockitoSpyBean
+    private WeatherAnalyticsService weatherAnalyticsService;
+
+    @Autowired
+    private KafkaTemplate<String, Weather> kafkaTemplate;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void listenerAndRequestHandlers_runOnVirtualThreads() throws Exception {
+        CompletableFuture<Thread> listenerThread = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            listenerThread.complete(Thread.currentThread());
+            return invocation.callRealMethod();
+        }).when(weatherAnalyticsService).processWeather(anyInt(), anyList(), anyLong());
+        CompletableFuture<Thread> requestThread = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            requestThread.complete(Thread.currentThread());
+            return invocation.callRealMethod();
+        }).when(weatherAnalyticsService).getRecentStats();
+
+        kafkaTemplate.send("virtual-weather-topic", City.MOSCOW.name(), Weather.builder()
+                .city(City.MOSCOW)
+                .temperature(12.5)
+                .condition(WeatherCondition.SUNNY)
+                .date(LocalDateTime.now())
+                .build());
+        ResponseEntity<String> response = restTemplate.getForEntity("/weather/stats/recent", String.class);
+
+        assertTrue(listenerThread.get(30, TimeUnit.SECONDS).isVirtual());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(requestThread.getNow(null).isVirtual());
+    }
+}
@@ -1,24 +1,22 @@
 package mapper;
 
-import org.junit.Test;
+import org.junit.jupiter.api.Test;
+import svs.weatherapp.analytics.CityStats;
+import svs.weatherapp.analytics.TemperatureHistogram;
 import svs.weatherapp.dto.WeatherAnalyticsDto;
 import svs.weatherapp.mapper.WeatherAnalyticsMapper;
 import svs.weatherapp.model.City;
 
-import java.util.DoubleSummaryStatistics;
-
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class WeatherAnalyticsMapperTest {
 
     @Test
     public void testToDto_withStats() {
-        DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
-        stats.accept(10.0);
-        stats.accept(20.0);
-        stats.accept(15.0);
+        CityStats stats = new CityStats(5, 3, 2, 3, 45.0, 10.0, 20.0,
+                TemperatureHistogram.EMPTY.with(10.0).with(20.0).with(15.0));
 
-        WeatherAnalyticsDto dto = WeatherAnalyticsMapper.toWeatherAnalyticsDto(City.MOSCOW, stats, 5, 3, 2);
+        WeatherAnalyticsDto dto = WeatherAnalyticsMapper.toWeatherAnalyticsDto(City.MOSCOW.name(), stats);
 
         assertEquals("MOSCOW", dto.getCity());
         assertEquals(5, dto.getSunnyDays());
@@ -27,11 +25,13 @@ public class WeatherAnalyticsMapperTest {
         assertEquals(10.0, dto.getMinTemperature(), 0.0001);
         assertEquals(20.0, dto.getMaxTemperature(), 0.0001);
         assertEquals(15.0, dto.getAverageTemperature(), 0.0001);
+        assertEquals(15.0, dto.getTemperatureP50(), TemperatureHistogram.BIN_WIDTH);
+        assertEquals(20.0, dto.getTemperatureP99(), TemperatureHistogram.BIN_WIDTH);
     }
 
     @Test
-    public void testToDto_nullStats() {
-        WeatherAnalyticsDto dto = WeatherAnalyticsMapper.toWeatherAnalyticsDto(City.PITER, null, 0, 0, 0);
+    public void testToDto_emptyStats() {
+        WeatherAnalyticsDto dto = WeatherAnalyticsMapper.toWeatherAnalyticsDto(City.PITER.name(), CityStats.EMPTY);
 
         assertEquals("PITER", dto.getCity());
         assertEquals(0, dto.getSunnyDays());
@@ -40,5 +40,6 @@ public class WeatherAnalyticsMapperTest {
         assertEquals(0.0, dto.getMinTemperature(), 0.0001);
         assertEquals(0.0, dto.getMaxTemperature(), 0.0001);
         assertEquals(0.0, dto.getAverageTemperature(), 0.0001);
+        assertEquals(0.0, dto.getTemperatureP90(), 0.0001);
     }
 }
\ No newline at end of file
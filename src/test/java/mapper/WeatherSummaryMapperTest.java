@@ -1,6 +1,6 @@
 package mapper;
 
-import org.junit.Test;
+import org.junit.jupiter.api.Test;
 import svs.weatherapp.dto.WeatherSummaryDto;
 import svs.weatherapp.mapper.WeatherSummaryMapper;
 import svs.weatherapp.model.City;
@@ -9,7 +9,7 @@ import svs.weatherapp.model.WeatherCondition;
 
 import java.time.LocalDateTime;
 
-import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class WeatherSummaryMapperTest {
 
@@ -39,11 +39,12 @@ public class WeatherSummaryMapperTest {
                 .build();
 
         WeatherSummaryDto dto = WeatherSummaryMapper.toWeatherSummaryDto(
-                City.MOSCOW, City.TYUMEN, City.PITER,
+                City.MOSCOW.name(), City.TYUMEN.name(), City.PITER.name(),
                 hottestWeather, coldestWeather, cloudiestWeather,
-                City.MOSCOW, City.MAGADAN, City.PITER,
+                City.MOSCOW.name(), City.MAGADAN.name(), City.PITER.name(),
                 100, 15.5,
-                30, 40, 30
+                30, 40, 30,
+                12.5, 25.0, 29.5
         );
 
         assertEquals("MOSCOW", dto.getMostRainyCity());
@@ -60,6 +61,9 @@ public class WeatherSummaryMapperTest {
         assertEquals(30, dto.getTotalRainyDays());
         assertEquals(40, dto.getTotalSunnyDays());
         assertEquals(30, dto.getTotalCloudyDays());
+        assertEquals(12.5, dto.getTemperatureP50(), 0.0001);
+        assertEquals(25.0, dto.getTemperatureP90(), 0.0001);
+        assertEquals(29.5, dto.getTemperatureP99(), 0.0001);
     }
 
     @Test
@@ -69,6 +73,7 @@ public class WeatherSummaryMapperTest {
                 null, null, null,
                 null, null, null,
                 0, 0,
+                0, 0, 0,
                 0, 0, 0
         );
 
@@ -0,0 +1,122 @@
+package producer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.producer.WeatherLoadGeneratorServiceImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WeatherLoadGeneratorServiceTest {
+    private static final String TOPIC = "weather-topic";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateLoad_keepsToTheRateAndWeights() {
+        KafkaTemplate<String, Weather> kafkaTemplate = mock(KafkaTemplate.class);
+        Queue<Sent> sent = new ConcurrentLinkedQueue<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(Weather.class))).thenAnswer(invocation -> {
+            sent.add(new Sent(invocation.getArgument(1), invocation.getArgument(2)));
+            return CompletableFuture.completedFuture(null);
+        });
+        WeatherLoadGeneratorServiceImpl generator = generator(kafkaTemplate, "moscow:3, PITER:1", "CLOUDY", 0);
+
+        generator.generateLoad();
+
+        assertEquals(1_000, sent.size());
+        long moscow = sent.stream().filter(s -> s.weather.getCity() == City.MOSCOW).count();
+        long piter = sent.stream().filter(s -> s.weather.getCity() == City.PITER).count();
+        assertEquals(sent.size(), moscow + piter);
+        assertEquals(0.75, (double) moscow / sent.size(), 0.1);
+        assertTrue(sent.stream().allMatch(s -> s.weather.getCondition() == WeatherCondition.CLOUDY));
+        assertTrue(sent.stream().allMatch(s -> s.key.equals(s.weather.stationName())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateLoad_givesTheRemainderToTheFirstThreads() {
+        KafkaTemplate<String, Weather> kafkaTemplate = mock(KafkaTemplate.class);
+        Map<Thread, Integer> perThread = new ConcurrentHashMap<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(Weather.class))).thenAnswer(invocation -> {
+            perThread.merge(Thread.currentThread(), 1, Integer::sum);
+            return CompletableFuture.completedFuture(null);
+        });
+        WeatherLoadGeneratorServiceImpl generator = generator(kafkaTemplate, "", "", 0);
+        ReflectionTestUtils.setField(generator, "targetRate", 10);
+        ReflectionTestUtils.setField(generator, "threads", 4);
+
+        generator.generateLoad();
+
+        assertEquals(List.of(2, 2, 3, 3), perThread.values().stream().sorted().toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateLoad_neverStartsMoreThreadsThanTheRate() {
+        KafkaTemplate<String, Weather> kafkaTemplate = mock(KafkaTemplate.class);
+        Map<Thread, Integer> perThread = new ConcurrentHashMap<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(Weather.class))).thenAnswer(invocation -> {
+            perThread.merge(Thread.currentThread(), 1, Integer::sum);
+            return CompletableFuture.completedFuture(null);
+        });
+        WeatherLoadGeneratorServiceImpl generator = generator(kafkaTemplate, "", "", 0);
+        ReflectionTestUtils.setField(generator, "targetRate", 3);
+        ReflectionTestUtils.setField(generator, "threads", 8);
+
+        generator.generateLoad();
+
+        assertEquals(List.of(1, 1, 1), perThread.values().stream().toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateLoad_withStations_sendsSyntheticStationsByName() {
+        KafkaTemplate<String, Weather> kafkaTemplate = mock(KafkaTemplate.class);
+        Queue<Sent> sent = new ConcurrentLinkedQueue<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(Weather.class))).thenAnswer(invocation -> {
+            sent.add(new Sent(invocation.getArgument(1), invocation.getArgument(2)));
+            return CompletableFuture.completedFuture(null);
+        });
+        WeatherLoadGeneratorServiceImpl generator = generator(kafkaTemplate, "", "", 50);
+
+        generator.generateLoad();
+
+        List<Sent> stations = sent.stream().filter(s -> s.weather.getCity() == null).toList();
+        assertFalse(stations.isEmpty());
+        assertTrue(stations.stream().allMatch(s -> s.key.matches("STATION-([0-9]|[1-4][0-9])")));
+        assertTrue(stations.stream().allMatch(s -> s.key.equals(s.weather.stationName())));
+    }
+
+    private static WeatherLoadGeneratorServiceImpl generator(KafkaTemplate<String, Weather> kafkaTemplate,
+                                                             String cityWeights, String conditionWeights,
+                                                             int stations) {
+        WeatherLoadGeneratorServiceImpl generator = new WeatherLoadGeneratorServiceImpl(kafkaTemplate);
+        ReflectionTestUtils.setField(generator, "weatherTopic", TOPIC);
+        ReflectionTestUtils.setField(generator, "targetRate", 1_000);
+        ReflectionTestUtils.setField(generator, "durationSeconds", 1L);
+        ReflectionTestUtils.setField(generator, "threads", 2);
+        ReflectionTestUtils.setField(generator, "virtualThreads", true);
+        ReflectionTestUtils.setField(generator, "cityWeights", cityWeights);
+        ReflectionTestUtils.setField(generator, "conditionWeights", conditionWeights);
+        ReflectionTestUtils.setField(generator, "stations", stations);
+        ReflectionTestUtils.setField(generator, "reportIntervalSeconds", 1L);
+        return generator;
+    }
+
+    private record Sent(String key, Weather weather) {
+    }
+}
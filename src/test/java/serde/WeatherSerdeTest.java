@@ -0,0 +1,85 @@
+package serde;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.serde.WeatherDeserializer;
+import svs.weatherapp.serde.WeatherSerializer;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeatherSerdeTest {
+
+    private final WeatherSerializer serializer = new WeatherSerializer();
+    private final WeatherDeserializer deserializer = new WeatherDeserializer();
+
+    @Test
+    void serialize_shouldRoundTripWeather() {
+        Weather weather = Weather.builder()
+                .city(City.MAGADAN)
+                .temperature(-12.3)
+                .condition(WeatherCondition.CLOUDY)
+                .date(LocalDateTime.of(2025, 7, 12, 10, 15, 30, 123_456_789))
+                .build();
+
+        byte[] data = serializer.serialize("topic", weather);
+
+        assertEquals(23, data.length);
+        assertEquals(weather, deserializer.deserialize("topic", data));
+    }
+
+    @Test
+    void serialize_withStation_writesNameAndRoundTrips() {
+        Weather weather = Weather.builder()
+                .station("Верхоянск")
+                .temperature(-51.5)
+                .condition(WeatherCondition.SUNNY)
+                .date(LocalDateTime.of(2025, 1, 15, 6, 0, 0, 42))
+                .build();
+
+        byte[] data = serializer.serialize("topic", weather);
+
+        assertEquals(2, data[0]);
+        assertEquals(weather, deserializer.deserialize("topic", data));
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize("topic", Arrays.copyOf(data, data.length - 1)));
+    }
+
+    @Test
+    void deserialize_withCityNamedStation_returnsCity() {
+        Weather weather = Weather.builder()
+                .city(City.TYUMEN)
+                .station("PITER")
+                .condition(WeatherCondition.RAINY)
+                .date(LocalDateTime.of(2025, 7, 12, 10, 0))
+                .build();
+
+        Weather read = deserializer.deserialize("topic", serializer.serialize("topic", weather));
+
+        assertEquals(City.PITER, read.getCity());
+        assertNull(read.getStation());
+    }
+
+    @Test
+    void serialize_withNull_returnsNull() {
+        assertNull(serializer.serialize("topic", null));
+        assertNull(deserializer.deserialize("topic", null));
+    }
+
+    @Test
+    void deserialize_withUnknownVersion_throws() {
+        byte[] data = serializer.serialize("topic", Weather.builder()
+                .city(City.MOSCOW)
+                .condition(WeatherCondition.SUNNY)
+                .date(LocalDateTime.of(2025, 7, 12, 10, 0))
+                .build());
+        data[0] = 99;
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topic", data));
+    }
+}
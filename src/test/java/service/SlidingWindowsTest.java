@@ -0,0 +1,47 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import svs.weatherapp.analytics.RecentAccumulator;
+import svs.weatherapp.analytics.SlidingWindows;
+import svs.weatherapp.dto.WindowStatsDto;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SlidingWindowsTest {
+
+    @Test
+    void accumulate_duringWrites_neverSeesAHalfAppliedReading() throws Exception {
+        SlidingWindows windows = new SlidingWindows();
+        long second = 1_758_326_400L;
+        int readings = 50_000;
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < readings; i++) {
+                windows.add(second, i, 0, WeatherCondition.SUNNY.ordinal(), 20.0);
+            }
+            done.set(true);
+        });
+
+        long previous = 0;
+        while (!done.get()) {
+            WindowStatsDto fiveMinutes = fiveMinutes(windows, second);
+            assertEquals(fiveMinutes.getTotalMeasurements(), fiveMinutes.getSunnyDays());
+            assertTrue(fiveMinutes.getTotalMeasurements() >= previous);
+            previous = fiveMinutes.getTotalMeasurements();
+        }
+        writer.join();
+
+        assertEquals(readings, fiveMinutes(windows, second).getTotalMeasurements());
+        assertEquals(second, windows.latestSecond());
+    }
+
+    private static WindowStatsDto fiveMinutes(SlidingWindows windows, long referenceSecond) {
+        RecentAccumulator accumulator = new RecentAccumulator();
+        windows.accumulate(referenceSecond, accumulator);
+        return accumulator.toRecentWeatherDtos().get(0).getWindows().get(0);
+    }
+}
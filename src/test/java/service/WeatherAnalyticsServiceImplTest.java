@@ -1,24 +1,40 @@
 package service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import svs.weatherapp.analytics.PeriodSummaryCache;
 import svs.weatherapp.analytics.WeatherAnalyticsServiceImpl;
+import svs.weatherapp.dto.RecentWeatherDto;
 import svs.weatherapp.dto.WeatherAnalyticsDto;
+import svs.weatherapp.dto.WeatherReadingDto;
 import svs.weatherapp.dto.WeatherSummaryDto;
+import svs.weatherapp.dto.WindowStatsDto;
+import svs.weatherapp.metrics.WeatherMetrics;
 import svs.weatherapp.model.City;
 import svs.weatherapp.model.Weather;
 import svs.weatherapp.model.WeatherCondition;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.DoubleSummaryStatistics;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class WeatherAnalyticsServiceImplTest {
 
+    private static final double BIN_TOLERANCE = 0.25 + 1e-9;
+
     private WeatherAnalyticsServiceImpl service;
 
     @BeforeEach
@@ -82,6 +98,189 @@ public class WeatherAnalyticsServiceImplTest {
         assertEquals(10.0, piterStats.getAverageTemperature(), 0.0001);
     }
 
+    @Test
+    void processWeatherBatch_shouldMatchSingleRecordProcessing() {
+        LocalDateTime now = LocalDateTime.of(2025, 7, 12, 10, 0);
+        List<Weather> batch = List.of(
+                Weather.builder().city(City.MOSCOW).temperature(20.5).condition(WeatherCondition.SUNNY).date(now).build(),
+                Weather.builder().city(City.MOSCOW).temperature(15.0).condition(WeatherCondition.RAINY)
+                        .date(now.minusMinutes(3)).build(),
+                Weather.builder().city(City.PITER).temperature(10.0).condition(WeatherCondition.CLOUDY)
+                        .date(now.plusHours(2)).build()
+        );
+
+        WeatherAnalyticsServiceImpl single = new WeatherAnalyticsServiceImpl();
+        batch.forEach(single::processWeather);
+        service.processWeather(batch);
+
+        assertEquals(single.getCityStats(), service.getCityStats());
+        assertEquals(single.getSummaryForPeriod(now.minusDays(1), now.plusDays(1)),
+                service.getSummaryForPeriod(now.minusDays(1), now.plusDays(1)));
+    }
+
+    @Test
+    void processWeatherByPartition_shouldMergeShardsOnRead() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        Random random = new Random(11);
+        WeatherAnalyticsServiceImpl single = new WeatherAnalyticsServiceImpl();
+        service.assignPartitions(List.of(0, 1, 2));
+
+        for (int i = 0; i < 3_000; i++) {
+            Weather weather = Weather.builder()
+                    .city(City.values()[random.nextInt(City.values().length)])
+                    .temperature(random.nextInt(60) / 2.0 - 10)
+                    .condition(WeatherCondition.values()[random.nextInt(WeatherCondition.values().length)])
+                    .date(start.plusMinutes(random.nextInt(5 * 24 * 60)).plusNanos(random.nextInt(1_000_000_000)))
+                    .build();
+            single.processWeather(weather);
+            service.processWeather(weather.getCity().ordinal() % 3, List.of(weather));
+        }
+        service.publishPending();
+
+        assertEquals(single.getCityStats(), service.getCityStats());
+        assertEquals(single.getSummaryForPeriod(start, start.plusDays(5)),
+                service.getSummaryForPeriod(start, start.plusDays(5)));
+        assertEquals(single.getSummaryForPeriod(start.plusHours(7).plusSeconds(13), start.plusDays(2).plusMinutes(5)),
+                service.getSummaryForPeriod(start.plusHours(7).plusSeconds(13), start.plusDays(2).plusMinutes(5)));
+    }
+
+    @Test
+    void releasePartitions_withoutStorageOrCheckpoints_keepsCountsAcrossReassign() {
+        LocalDateTime baseDate = LocalDateTime.of(2024, 3, 1, 12, 0);
+        LocalDateTime start = baseDate.minusDays(1);
+        LocalDateTime end = baseDate.plusDays(1);
+        service.processWeather(0, List.of(Weather.builder().city(City.MOSCOW).temperature(10)
+                .condition(WeatherCondition.SUNNY).date(baseDate).build()), 5);
+        service.processWeather(1, List.of(Weather.builder().city(City.PITER).temperature(20)
+                .condition(WeatherCondition.RAINY).date(baseDate).build()), 8);
+        WeatherSummaryDto before = service.getSummaryForPeriod(start, end);
+
+        service.releasePartitions(List.of(0, 1));
+        service.assignPartitions(List.of(0, 1));
+
+        assertEquals(5, service.lastAppliedOffset(0));
+        assertEquals(8, service.lastAppliedOffset(1));
+        assertEquals(1, service.getCityStats().get(City.PITER.ordinal()).getRainyDays());
+        assertEquals(1, service.getCityStats().get(City.MOSCOW.ordinal()).getSunnyDays());
+        assertEquals(before, service.getSummaryForPeriod(start, end));
+    }
+
+    @Test
+    void processWeather_skipsIncompleteReadingsWithoutApplyingHalfTheBatch() {
+        LocalDateTime date = LocalDateTime.of(2024, 3, 1, 12, 0);
+        service.processWeather(0, List.of(
+                weather(City.MOSCOW, 10.0, WeatherCondition.SUNNY, date),
+                weather(City.PITER, 11.0, null, date),
+                Weather.builder().temperature(12.0).condition(WeatherCondition.RAINY).date(date).build(),
+                Weather.builder().station("bad\nname").temperature(13.0).condition(WeatherCondition.RAINY)
+                        .date(date).build(),
+                weather(City.MOSCOW, 14.0, WeatherCondition.RAINY, null),
+                weather(City.TYUMEN, 15.0, WeatherCondition.CLOUDY, date)), 6);
+
+        assertEquals(6, service.lastAppliedOffset(0));
+        assertEquals(2, service.getSummaryForPeriod(date.minusDays(1), date.plusDays(1)).getTotalMeasurements());
+        assertEquals(0, service.getCityStats().get(City.PITER.ordinal()).getCloudyDays()
+                + service.getCityStats().get(City.PITER.ordinal()).getSunnyDays()
+                + service.getCityStats().get(City.PITER.ordinal()).getRainyDays());
+    }
+
+    @Test
+    void processWeather_shouldRecordMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WeatherAnalyticsServiceImpl metered = new WeatherAnalyticsServiceImpl(null, null, new WeatherMetrics(registry),
+                Clock.systemDefaultZone());
+        LocalDateTime now = LocalDateTime.now();
+
+        metered.processWeather(List.of(
+                Weather.builder().city(City.MOSCOW).temperature(1.0).condition(WeatherCondition.SUNNY)
+                        .date(now.minusSeconds(2)).build(),
+                Weather.builder().city(City.PITER).temperature(2.0).condition(WeatherCondition.RAINY)
+                        .date(now.minusSeconds(1).plusNanos(5)).build()));
+        metered.getSummaryForPeriod(now.minusSeconds(3), now);
+
+        assertEquals(1, registry.get("weather.ingest").timer().count());
+        assertEquals(2, registry.get("weather.ingest.lag").timer().count());
+        assertEquals(2.0, registry.get("weather.store.readings").gauge().value());
+        assertTrue(registry.get("weather.store.size").gauge().value() > 0);
+        assertEquals(1, registry.get("weather.summary.rows.scanned").summary().count());
+        assertEquals(2.0, registry.get("weather.summary.rows.scanned").summary().totalAmount());
+    }
+
+    @Test
+    void getSummaryForPeriod_reusesClosedWindowsUntilLateDataArrives() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LocalDateTime today = LocalDateTime.of(2025, 9, 20, 0, 0);
+        LocalDateTime now = today.plusHours(23).plusMinutes(59).plusSeconds(30);
+        WeatherAnalyticsServiceImpl cached = new WeatherAnalyticsServiceImpl(null, null, new WeatherMetrics(registry),
+                fixedClock(now));
+        WeatherAnalyticsServiceImpl uncached = new WeatherAnalyticsServiceImpl(fixedClock(now));
+        uncached.setSummaryCacheEntries(0);
+        Random random = new Random(5);
+        List<Weather> weathers = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            weathers.add(Weather.builder()
+                    .city(City.values()[random.nextInt(City.values().length)])
+                    .temperature(random.nextInt(40) - 10)
+                    .condition(WeatherCondition.values()[random.nextInt(WeatherCondition.values().length)])
+                    .date(today.minusDays(10).plusMinutes(random.nextInt(10 * 24 * 60)).plusSeconds(random.nextInt(60)))
+                    .build());
+        }
+        cached.processWeather(weathers);
+        uncached.processWeather(weathers);
+
+        LocalDateTime start = today.minusDays(9).plusHours(3);
+        LocalDateTime end = today.minusDays(2).plusMinutes(17);
+        WeatherSummaryDto first = cached.getSummaryForPeriod(start, end);
+        double scannedAfterFirst = registry.get("weather.summary.rows.scanned").summary().totalAmount();
+        assertEquals(first, cached.getSummaryForPeriod(start, end));
+        assertEquals(scannedAfterFirst, registry.get("weather.summary.rows.scanned").summary().totalAmount());
+        assertEquals(uncached.getSummaryForPeriod(start, end), first);
+
+        Weather late = Weather.builder().city(City.MAGADAN).temperature(-40.0).condition(WeatherCondition.CLOUDY)
+                .date(today.minusDays(5)).build();
+        cached.processWeather(late);
+        uncached.processWeather(late);
+        WeatherSummaryDto afterLate = cached.getSummaryForPeriod(start, end);
+        assertEquals(first.getTotalMeasurements() + 1, afterLate.getTotalMeasurements());
+        assertEquals(uncached.getSummaryForPeriod(start, end), afterLate);
+
+        Weather fresh = Weather.builder().city(City.PITER).temperature(50.0).condition(WeatherCondition.SUNNY)
+                .date(now).build();
+        cached.processWeather(fresh);
+        uncached.processWeather(fresh);
+        LocalDateTime openEnd = now.plusHours(1);
+        assertEquals(uncached.getSummaryForPeriod(start, openEnd).getTotalMeasurements(),
+                cached.getSummaryForPeriod(start, openEnd).getTotalMeasurements());
+        assertEquals(uncached.getSummaryForPeriod(start, openEnd).getHottestDay(),
+                cached.getSummaryForPeriod(start, openEnd).getHottestDay());
+    }
+
+    @Test
+    void getSummaryForPeriod_boundsWithinTheSameMinutes_shareCacheEntry() {
+        LocalDateTime noon = LocalDateTime.of(2025, 6, 10, 12, 0);
+        service = new WeatherAnalyticsServiceImpl(fixedClock(noon));
+        WeatherAnalyticsServiceImpl uncached = new WeatherAnalyticsServiceImpl(fixedClock(noon));
+        uncached.setSummaryCacheEntries(0);
+        Random random = new Random(17);
+        List<Weather> weathers = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            weathers.add(weather(City.values()[random.nextInt(City.values().length)], random.nextInt(40) - 10,
+                    WeatherCondition.values()[random.nextInt(WeatherCondition.values().length)],
+                    noon.minusDays(5).plusSeconds(random.nextInt(4 * 86_400))));
+        }
+        service.processWeather(weathers);
+        uncached.processWeather(weathers);
+
+        LocalDateTime start = noon.minusDays(4).plusMinutes(3);
+        LocalDateTime end = noon.minusDays(2).plusMinutes(41);
+        for (long offset : new long[]{1_000_000, 7_500_000_000L, 59_000_000_000L}) {
+            assertEquals(uncached.getSummaryForPeriod(start.plusNanos(offset), end.plusNanos(offset)),
+                    service.getSummaryForPeriod(start.plusNanos(offset), end.plusNanos(offset)));
+        }
+        PeriodSummaryCache summaryCache = (PeriodSummaryCache) ReflectionTestUtils.getField(service, "summaryCache");
+        assertEquals(1, summaryCache.size());
+    }
+
     @Test
     void getCityStats_withNoData_returnsZeroCountsAndDefaults() {
         List<WeatherAnalyticsDto> stats = service.getCityStats();
@@ -181,179 +380,387 @@ public class WeatherAnalyticsServiceImplTest {
     }
 
     @Test
-    void getSummaryForPeriod_withPartialPeriod_filtersCorrectly() {
-        LocalDateTime now = LocalDateTime.now();
+    void getSummaryForPeriod_matchesStreamOracle() {
+        LocalDateTime baseDate = LocalDateTime.of(2025, 7, 1, 0, 0);
+        Random random = new Random(42);
+        List<Weather> weathers = new ArrayList<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            Weather weather = Weather.builder()
+                    .city(City.values()[random.nextInt(City.values().length)])
+                    .temperature(random.nextDouble() * 35)
+                    .condition(WeatherCondition.values()[random.nextInt(WeatherCondition.values().length)])
+                    .date(baseDate.plusSeconds(random.nextInt(30 * 86_400)).plusNanos(random.nextInt(1_000)))
+                    .build();
+            weathers.add(weather);
+            service.processWeather(weather);
+        }
+
+        assertSummaryMatchesOracle(weathers, baseDate.plusDays(3), baseDate.plusDays(17).plusHours(5));
+        assertSummaryMatchesOracle(weathers,
+                baseDate.plusDays(2).plusHours(7).plusMinutes(13).plusSeconds(5).plusNanos(123),
+                baseDate.plusDays(21).plusHours(1).plusMinutes(59).plusSeconds(59).plusNanos(999_999_999));
+        assertSummaryMatchesOracle(weathers, baseDate.minusDays(1), baseDate.plusDays(31));
+    }
 
-        Weather w1 = Weather.builder()
-                .city(City.MOSCOW)
-                .temperature(10)
-                .condition(WeatherCondition.SUNNY)
-                .date(now.minusDays(10))
-                .build();
+    // Recomputes every summary field from the raw readings with plain streams.
+    private void assertSummaryMatchesOracle(List<Weather> weathers, LocalDateTime start, LocalDateTime end) {
+        List<Weather> period = weathers.stream()
+                .filter(w -> !w.getDate().isBefore(start) && !w.getDate().isAfter(end))
+                .sorted(Comparator.comparing(Weather::getDate))
+                .toList();
+        WeatherSummaryDto summary = service.getSummaryForPeriod(start, end);
 
-        Weather w2 = Weather.builder()
-                .city(City.PITER)
-                .temperature(5)
-                .condition(WeatherCondition.RAINY)
-                .date(now.minusDays(1))
-                .build();
+        Map<City, Long> rainy = countByCondition(period, WeatherCondition.RAINY);
+        Map<City, Long> sunny = countByCondition(period, WeatherCondition.SUNNY);
+        Map<City, Long> cloudy = countByCondition(period, WeatherCondition.CLOUDY);
+        Map<City, DoubleSummaryStatistics> tempStats = period.stream()
+                .collect(Collectors.groupingBy(Weather::getCity, Collectors.summarizingDouble(Weather::getTemperature)));
+        Map<City, DoubleSummaryStatistics> cloudyTempStats = period.stream()
+                .filter(w -> w.getCondition() == WeatherCondition.CLOUDY)
+                .collect(Collectors.groupingBy(Weather::getCity, Collectors.summarizingDouble(Weather::getTemperature)));
+        Comparator<Weather> byTemperature = Comparator.comparingDouble(Weather::getTemperature);
+        Weather hottest = period.stream().max(byTemperature).orElseThrow();
+        Weather coldest = period.stream().min(byTemperature).orElseThrow();
+        Comparator<DoubleSummaryStatistics> byAverage = Comparator.comparingDouble(DoubleSummaryStatistics::getAverage);
+
+        assertEquals(maxKey(rainy, Comparator.naturalOrder()).name(), summary.getMostRainyCity());
+        assertEquals(maxKey(sunny, Comparator.naturalOrder()).name(), summary.getMostSunnyCity());
+        assertEquals(maxKey(cloudy, Comparator.naturalOrder()).name(), summary.getMostCloudyCity());
+        assertEquals(hottest.getDate().toLocalDate() + " in " + hottest.getCity(), summary.getHottestDay());
+        assertEquals(coldest.getDate().toLocalDate() + " in " + coldest.getCity(), summary.getColdestDay());
+        assertEquals(maxKey(tempStats, byAverage).name(), summary.getHottestAverageCity());
+        assertEquals(maxKey(tempStats, byAverage.reversed()).name(), summary.getColdestAverageCity());
+        assertEquals(maxKey(cloudyTempStats, byAverage.reversed()).name(), summary.getCloudiestAverageCity());
+        assertEquals(period.size(), summary.getTotalMeasurements());
+        assertEquals(period.stream().mapToDouble(Weather::getTemperature).average().orElse(0.0),
+                summary.getAverageTemperature(), 0.0001);
+        assertEquals(sum(rainy), summary.getTotalRainyDays());
+        assertEquals(sum(sunny), summary.getTotalSunnyDays());
+        assertEquals(sum(cloudy), summary.getTotalCloudyDays());
+        double[] temperatures = period.stream().mapToDouble(Weather::getTemperature).sorted().toArray();
+        assertEquals(exactPercentile(temperatures, 50), summary.getTemperatureP50(), BIN_TOLERANCE);
+        assertEquals(exactPercentile(temperatures, 90), summary.getTemperatureP90(), BIN_TOLERANCE);
+        assertEquals(exactPercentile(temperatures, 99), summary.getTemperatureP99(), BIN_TOLERANCE);
+    }
 
-        service.processWeather(w1);
-        service.processWeather(w2);
+    private static Map<City, Long> countByCondition(List<Weather> weathers, WeatherCondition condition) {
+        return weathers.stream()
+                .filter(w -> w.getCondition() == condition)
+                .collect(Collectors.groupingBy(Weather::getCity, Collectors.counting()));
+    }
 
-        WeatherSummaryDto summary = service.getSummaryForPeriod(now.minusDays(2), now);
+    private static <V> City maxKey(Map<City, V> values, Comparator<V> comparator) {
+        return values.entrySet().stream()
+                .max(Map.Entry.comparingByValue(comparator))
+                .map(Map.Entry::getKey)
+                .orElseThrow();
+    }
 
-        assertEquals("PITER", summary.getMostRainyCity());
-        assertEquals(1, summary.getTotalMeasurements());
+    private static long sum(Map<City, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
     }
 
     @Test
-    void filterWeathersByPeriod_returnsCorrectSubset() {
-        LocalDateTime now = LocalDateTime.now();
-        Weather w1 = Weather.builder().city(City.MOSCOW).temperature(10).condition(WeatherCondition.SUNNY).
-                date(now.minusDays(3)).build();
-        Weather w2 = Weather.builder().city(City.PITER).temperature(15).condition(WeatherCondition.CLOUDY).
-                date(now.minusDays(1)).build();
-
-        service.processWeather(w1);
-        service.processWeather(w2);
-
-        List<Weather> filtered = service.filterWeathersByPeriod(now.minusDays(2), now);
+    void getCityStats_percentilesMergeAcrossPartitions() {
+        LocalDateTime baseDate = LocalDateTime.of(2025, 7, 1, 0, 0);
+        Random random = new Random(7);
+        List<Double> moscow = new ArrayList<>();
+        for (int partition = 0; partition < 3; partition++) {
+            List<Weather> batch = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                double temperature = Math.round((random.nextGaussian() * 8 + partition * 5) * 10) / 10.0;
+                moscow.add(temperature);
+                batch.add(Weather.builder()
+                        .city(City.MOSCOW)
+                        .temperature(temperature)
+                        .condition(WeatherCondition.SUNNY)
+                        .date(baseDate.plusMinutes(i))
+                        .build());
+            }
+            service.processWeather(partition, batch);
+        }
+
+        WeatherAnalyticsDto stats = service.getCityStats().stream()
+                .filter(dto -> dto.getCity().equals("MOSCOW"))
+                .findFirst().orElseThrow();
+        double[] temperatures = moscow.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        assertEquals(exactPercentile(temperatures, 50), stats.getTemperatureP50(), BIN_TOLERANCE);
+        assertEquals(exactPercentile(temperatures, 90), stats.getTemperatureP90(), BIN_TOLERANCE);
+        assertEquals(exactPercentile(temperatures, 99), stats.getTemperatureP99(), BIN_TOLERANCE);
+    }
 
-        assertEquals(1, filtered.size());
-        assertEquals(City.PITER, filtered.getFirst().getCity());
+    @Test
+    void getRecentStats_expiresBucketsAsClockAndEventTimeAdvance() {
+        LocalDateTime noon = LocalDateTime.of(2025, 7, 1, 12, 0);
+        MutableClock clock = new MutableClock(noon);
+        service = new WeatherAnalyticsServiceImpl(clock);
+        service.processWeather(0, List.of(
+                weather(City.MOSCOW, 20.0, WeatherCondition.SUNNY, noon.minusMinutes(2)),
+                weather(City.MOSCOW, 10.0, WeatherCondition.RAINY, noon.minusMinutes(30)),
+                weather(City.MOSCOW, 4.0, WeatherCondition.CLOUDY, noon.minusHours(11)),
+                weather(City.MOSCOW, -7.0, WeatherCondition.CLOUDY, noon.minusDays(1).minusHours(2))));
+        service.processWeather(1, List.of(weather(City.MOSCOW, 30.0, WeatherCondition.SUNNY, noon.minusMinutes(1))));
+
+        RecentWeatherDto moscow = recent("MOSCOW");
+        assertEquals(noon.minusMinutes(1).toString(), moscow.getLatestDate());
+        assertEquals(30.0, moscow.getLatestTemperature());
+        assertEquals("SUNNY", moscow.getLatestCondition());
+        assertWindow(moscow.getWindows().get(0), "5m", 2, 20.0, 30.0);
+        assertWindow(moscow.getWindows().get(1), "1h", 3, 10.0, 30.0);
+        assertWindow(moscow.getWindows().get(2), "24h", 4, 4.0, 30.0);
+        assertEquals(1, moscow.getWindows().get(2).getCloudyDays());
+        assertEquals("N/A", recent("PITER").getLatestDate());
+
+        clock.set(noon.plusMinutes(10));
+        moscow = recent("MOSCOW");
+        assertWindow(moscow.getWindows().get(0), "5m", 0, 0, 0);
+        assertWindow(moscow.getWindows().get(1), "1h", 3, 10.0, 30.0);
+
+        service.processWeather(0, List.of(weather(City.MOSCOW, 15.0, WeatherCondition.RAINY, noon.plusHours(12))));
+        moscow = recent("MOSCOW");
+        assertEquals(15.0, moscow.getLatestTemperature());
+        assertWindow(moscow.getWindows().get(0), "5m", 1, 15.0, 15.0);
+        assertWindow(moscow.getWindows().get(1), "1h", 1, 15.0, 15.0);
+        assertWindow(moscow.getWindows().get(2), "24h", 5, 4.0, 30.0);
     }
 
     @Test
-    void countByCondition_countsCorrectly() {
-        List<Weather> list = List.of(
-                Weather.builder().city(City.MOSCOW).condition(WeatherCondition.SUNNY).build(),
-                Weather.builder().city(City.PITER).condition(WeatherCondition.SUNNY).build(),
-                Weather.builder().city(City.MOSCOW).condition(WeatherCondition.RAINY).build()
-        );
+    void getSummaryForPeriod_withTop_returnsExtremeReadingsAcrossPartitions() {
+        LocalDateTime baseDate = LocalDateTime.of(2025, 7, 1, 0, 0);
+        Random random = new Random(3);
+        List<Weather> all = new ArrayList<>();
+        for (int partition = 0; partition < 2; partition++) {
+            List<Weather> batch = new ArrayList<>();
+            for (int i = 0; i < 6_000; i++) {
+                batch.add(weather(City.values()[random.nextInt(City.values().length)],
+                        Math.round(random.nextDouble() * 400) / 10.0, WeatherCondition.SUNNY,
+                        baseDate.plusSeconds(random.nextInt(10 * 86_400))));
+            }
+            all.addAll(batch);
+            service.processWeather(partition, batch);
+        }
+        LocalDateTime start = baseDate.plusDays(1).plusHours(3);
+        LocalDateTime end = baseDate.plusDays(8);
+
+        WeatherSummaryDto summary = service.getSummaryForPeriod(start, end, 5);
+
+        List<Weather> period = all.stream()
+                .filter(weather -> !weather.getDate().isBefore(start) && !weather.getDate().isAfter(end))
+                .toList();
+        Comparator<Weather> byTemperature = Comparator.comparingDouble(Weather::getTemperature);
+        assertEquals(period.stream().sorted(byTemperature.reversed().thenComparing(Weather::getDate)).limit(5)
+                        .map(Weather::getTemperature).toList(),
+                summary.getHottestReadings().stream().map(WeatherReadingDto::getTemperature).toList());
+        assertEquals(period.stream().sorted(byTemperature.thenComparing(Weather::getDate)).limit(5)
+                        .map(Weather::getTemperature).toList(),
+                summary.getColdestReadings().stream().map(WeatherReadingDto::getTemperature).toList());
+        assertEquals(summary.getHottestDay(), summary.getHottestReadings().get(0).getDate().substring(0, 10)
+                + " in " + summary.getHottestReadings().get(0).getCity());
+        assertTrue(service.getSummaryForPeriod(start, end).getHottestReadings().isEmpty());
+    }
 
-        Map<City, Long> counts = service.countByCondition(list, WeatherCondition.SUNNY);
+    @Test
+    void processWeather_withManyStations_keepsEveryStationApart() {
+        LocalDateTime baseDate = LocalDateTime.of(2025, 8, 1, 0, 0);
+        service = new WeatherAnalyticsServiceImpl(fixedClock(baseDate.plusHours(1)));
+        int stations = 3_000;
+        for (int partition = 0; partition < 2; partition++) {
+            List<Weather> batch = new ArrayList<>();
+            for (int station = partition; station < stations; station += 2) {
+                batch.add(Weather.builder()
+                        .station("many-stations-" + station)
+                        .temperature(station / 100.0)
+                        .condition(station == 7 ? WeatherCondition.RAINY : WeatherCondition.SUNNY)
+                        .date(baseDate.plusSeconds(station))
+                        .build());
+            }
+            service.processWeather(partition, batch);
+        }
 
-        assertEquals(2, counts.size());
-        assertEquals(1L, counts.get(City.PITER));
-        assertEquals(1L, counts.get(City.MOSCOW));
+        List<WeatherAnalyticsDto> stats = service.getCityStats();
+        assertEquals(City.values().length + stations, stats.size());
+        WeatherAnalyticsDto last = stats.stream()
+                .filter(dto -> dto.getCity().equals("many-stations-2999"))
+                .findFirst().orElseThrow();
+        assertEquals(1, last.getSunnyDays());
+        assertEquals(29.99, last.getMaxTemperature());
+
+        WeatherSummaryDto summary = service.getSummaryForPeriod(baseDate, baseDate.plusHours(1), 1);
+        assertEquals(stations, summary.getTotalMeasurements());
+        assertEquals("many-stations-7", summary.getMostRainyCity());
+        assertEquals("many-stations-0", summary.getMostSunnyCity());
+        assertEquals("many-stations-2999", summary.getHottestAverageCity());
+        assertEquals("2025-08-01 in many-stations-0", summary.getColdestDay());
+        assertEquals("many-stations-2999", summary.getHottestReadings().get(0).getCity());
+
+        List<RecentWeatherDto> recent = service.getRecentStats();
+        assertEquals(City.values().length + stations, recent.size());
+        RecentWeatherDto first = recent.stream()
+                .filter(dto -> dto.getCity().equals("many-stations-0"))
+                .findFirst().orElseThrow();
+        assertEquals(0.0, first.getLatestTemperature());
+        assertWindow(first.getWindows().get(1), "1h", 0, 0, 0);
+        assertWindow(first.getWindows().get(2), "24h", 1, 0.0, 0.0);
     }
 
     @Test
-    void summarizeTemperatureByCity_calculatesStatsCorrectly() {
-        List<Weather> list = List.of(
-                Weather.builder().city(City.MOSCOW).temperature(10).build(),
-                Weather.builder().city(City.MOSCOW).temperature(20).build(),
-                Weather.builder().city(City.PITER).temperature(15).build()
-        );
+    void getSummaryForPeriod_wideInParallel_matchesSequential() {
+        WeatherAnalyticsServiceImpl parallel = new WeatherAnalyticsServiceImpl();
+        parallel.setSummaryParallelism(4);
+        ReflectionTestUtils.setField(parallel, "parallelMinDays", 1L);
+        ReflectionTestUtils.setField(service, "parallelMinDays", Long.MAX_VALUE);
+        LocalDateTime baseDate = LocalDateTime.of(2025, 3, 1, 0, 0);
+        Random random = new Random(11);
+        for (int partition = 0; partition < 3; partition++) {
+            List<Weather> batch = new ArrayList<>();
+            for (int i = 0; i < 8_000; i++) {
+                batch.add(weather(City.values()[random.nextInt(City.values().length)],
+                        random.nextInt(120) * 0.5 - 20,
+                        WeatherCondition.values()[random.nextInt(WeatherCondition.values().length)],
+                        baseDate.plusSeconds(random.nextInt(60 * 86_400)).plusNanos(random.nextInt(1_000_000_000))));
+            }
+            parallel.processWeather(partition, batch);
+            service.processWeather(partition, batch);
+        }
+
+        for (LocalDateTime[] period : new LocalDateTime[][]{
+                {baseDate.plusHours(5).plusNanos(1), baseDate.plusDays(41).plusMinutes(7)},
+                {baseDate.minusDays(3), baseDate.plusDays(70)},
+                {baseDate.plusDays(10), baseDate.plusDays(12).minusNanos(1)},
+                {baseDate.plusDays(3), baseDate.plusDays(20)}}) {
+            assertEquals(service.getSummaryForPeriod(period[0], period[1]),
+                    parallel.getSummaryForPeriod(period[0], period[1]));
+        }
+        parallel.close();
+    }
 
-        Map<City, DoubleSummaryStatistics> stats = service.summarizeTemperatureByCity(list);
+    private RecentWeatherDto recent(String city) {
+        return service.getRecentStats().stream()
+                .filter(dto -> dto.getCity().equals(city))
+                .findFirst().orElseThrow();
+    }
 
-        assertEquals(2, stats.get(City.MOSCOW).getCount());
-        assertEquals(10, stats.get(City.MOSCOW).getMin(), 0.001);
-        assertEquals(20, stats.get(City.MOSCOW).getMax(), 0.001);
-        assertEquals(15, stats.get(City.MOSCOW).getAverage(), 0.001);
-        assertEquals(1, stats.get(City.PITER).getCount());
+    private static void assertWindow(WindowStatsDto window, String name, long measurements, double min, double max) {
+        assertEquals(name, window.getWindow());
+        assertEquals(measurements, window.getTotalMeasurements());
+        assertEquals(min, window.getMinTemperature());
+        assertEquals(max, window.getMaxTemperature());
     }
 
-    @Test
-    void getCityWithMaxCount_returnsCorrectCity() {
-        Map<City, Long> counts = Map.of(
-                City.MOSCOW, 5L,
-                City.PITER, 10L
-        );
-        City result = service.getCityWithMaxCount(counts);
-        assertEquals(City.PITER, result);
-        assertNull(service.getCityWithMaxCount(Collections.emptyMap()));
+    private static Clock fixedClock(LocalDateTime now) {
+        return Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
     }
 
-    @Test
-    void getExtremeWeather_returnsCorrectExtreme() {
-        List<Weather> list = List.of(
-                Weather.builder().temperature(10).build(),
-                Weather.builder().temperature(20).build(),
-                Weather.builder().temperature(15).build()
-        );
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
 
-        Weather max = service.getExtremeWeather(list, true);
-        assertEquals(20, max.getTemperature(), 0.001);
+        private MutableClock(LocalDateTime now) {
+            set(now);
+        }
 
-        Weather min = service.getExtremeWeather(list, false);
-        assertEquals(10, min.getTemperature(), 0.001);
-        assertNull(service.getExtremeWeather(Collections.emptyList(), true));
-    }
+        private void set(LocalDateTime now) {
+            this.now = now.toInstant(ZoneOffset.UTC);
+        }
 
-    @Test
-    void getCloudiestWeather_returnsCorrectWeather() {
-        LocalDateTime now = LocalDateTime.now();
-        Weather w1 = Weather.builder().condition(WeatherCondition.CLOUDY).date(now.minusDays(1)).build();
-        Weather w2 = Weather.builder().condition(WeatherCondition.CLOUDY).date(now).build();
-        Weather w3 = Weather.builder().condition(WeatherCondition.SUNNY).date(now).build();
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
 
-        List<Weather> list = List.of(w1, w2, w3);
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
 
-        Weather cloudiest = service.getCloudiestWeather(list);
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
 
-        assertEquals(WeatherCondition.CLOUDY, cloudiest.getCondition());
+    private static Weather weather(City city, double temperature, WeatherCondition condition, LocalDateTime date) {
+        return Weather.builder().city(city).temperature(temperature).condition(condition).date(date).build();
     }
 
-    @Test
-    void calculateAverageTemperature_returnsAverage() {
-        List<Weather> list = List.of(
-                Weather.builder().temperature(10).build(),
-                Weather.builder().temperature(20).build()
-        );
-        double avg = service.calculateAverageTemperature(list);
-        assertEquals(15.0, avg, 0.001);
-        assertEquals(0.0, service.calculateAverageTemperature(Collections.emptyList()), 0.001);
+    private static double exactPercentile(double[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
     }
 
     @Test
-    void getCityWithExtremeAvgTemp_returnsCorrectCity() {
-        Map<City, DoubleSummaryStatistics> stats = Map.of(
-                City.MOSCOW, new DoubleSummaryStatistics() {{
-                    accept(10);
-                    accept(20);
-                }},
-                City.PITER, new DoubleSummaryStatistics() {{
-                    accept(15);
-                    accept(25);
-                }}
-        );
+    void getSummaryForPeriod_withPartialPeriod_filtersCorrectly() {
+        LocalDateTime now = LocalDateTime.now();
+
+        Weather w1 = Weather.builder()
+                .city(City.MOSCOW)
+                .temperature(10)
+                .condition(WeatherCondition.SUNNY)
+                .date(now.minusDays(10))
+                .build();
+
+        Weather w2 = Weather.builder()
+                .city(City.PITER)
+                .temperature(5)
+                .condition(WeatherCondition.RAINY)
+                .date(now.minusDays(1))
+                .build();
 
-        City hottest = service.getCityWithExtremeAvgTemp(stats, true);
-        City coldest = service.getCityWithExtremeAvgTemp(stats, false);
+        service.processWeather(w1);
+        service.processWeather(w2);
 
-        assertEquals(City.PITER, hottest);
-        assertEquals(City.MOSCOW, coldest);
-        assertNull(service.getCityWithExtremeAvgTemp(Collections.emptyMap(), true));
+        WeatherSummaryDto summary = service.getSummaryForPeriod(now.minusDays(2), now);
+
+        assertEquals("PITER", summary.getMostRainyCity());
+        assertEquals(1, summary.getTotalMeasurements());
     }
 
     @Test
-    void getCloudiestAverageCity_returnsCorrectCity() {
-        LocalDateTime now = LocalDateTime.now();
+    void publishInterval_readersSeeOnlyPublishedSnapshot() {
+        ReflectionTestUtils.setField(service, "publishIntervalMs", 60_000L);
+        LocalDateTime baseDate = LocalDateTime.of(2025, 7, 12, 10, 0);
 
-        List<Weather> weathers = List.of(
-                Weather.builder().city(City.MOSCOW).condition(WeatherCondition.CLOUDY).temperature(10).date(now).build(),
-                Weather.builder().city(City.PITER).condition(WeatherCondition.CLOUDY).temperature(5).date(now).build(),
-                Weather.builder().city(City.MOSCOW).condition(WeatherCondition.SUNNY).temperature(30).date(now).build()
-        );
+        service.processWeather(Weather.builder().city(City.MOSCOW).temperature(10)
+                .condition(WeatherCondition.SUNNY).date(baseDate).build());
+        service.publishPending();
+        service.processWeather(Weather.builder().city(City.MOSCOW).temperature(30)
+                .condition(WeatherCondition.RAINY).date(baseDate.plusMinutes(5)).build());
+        service.processWeather(Weather.builder().city(City.MOSCOW).temperature(20)
+                .condition(WeatherCondition.RAINY).date(baseDate.plusMinutes(5).plusSeconds(1)).build());
 
-        City cloudiest = service.getCloudiestAverageCity(weathers);
+        WeatherSummaryDto summary = service.getSummaryForPeriod(baseDate.minusDays(1), baseDate.plusDays(1));
+        WeatherAnalyticsDto moscowStats = service.getCityStats().getFirst();
 
-        assertEquals(City.PITER, cloudiest);
-        assertNull(service.getCloudiestAverageCity(Collections.emptyList()));
+        assertEquals(1, summary.getTotalMeasurements());
+        assertEquals(10.0, summary.getAverageTemperature(), 0.0001);
+        assertEquals(1, moscowStats.getSunnyDays());
+        assertEquals(0, moscowStats.getRainyDays());
+
+        service.publishPending();
+
+        summary = service.getSummaryForPeriod(baseDate.minusDays(1), baseDate.plusDays(1));
+        moscowStats = service.getCityStats().getFirst();
+
+        assertEquals(3, summary.getTotalMeasurements());
+        assertEquals(20.0, summary.getAverageTemperature(), 0.0001);
+        assertEquals(2, moscowStats.getRainyDays());
+        assertEquals(30.0, moscowStats.getMaxTemperature(), 0.0001);
     }
 
     @Test
-    void sumValues_returnsCorrectSum() {
-        Map<City, Long> counts = Map.of(
-                City.MOSCOW, 5L,
-                City.PITER, 10L
-        );
-
-        long sum = service.sumValues(counts);
-        assertEquals(15L, sum);
-        assertEquals(0L, service.sumValues(Collections.emptyMap()));
+    void processWeather_publishingEveryReading_keepsRollupVersionsBounded() {
+        LocalDateTime baseDate = LocalDateTime.of(2025, 7, 12, 10, 0);
+        int readings = 100_000;
+
+        for (int i = 0; i < readings; i++) {
+            service.processWeather(Weather.builder().city(City.MOSCOW).temperature(i % 40)
+                    .condition(WeatherCondition.SUNNY).date(baseDate.plusNanos(i * 1_000L)).build());
+        }
+
+        // One day, hour and minute bucket, each linked to at most the version the current snapshot sees.
+        assertTrue(service.olderRollupVersions() <= 3);
+        WeatherSummaryDto summary = service.getSummaryForPeriod(baseDate.minusDays(1), baseDate.plusDays(1));
+        assertEquals(readings, summary.getTotalMeasurements());
+        assertEquals(readings, service.getCityStats().getFirst().getSunnyDays());
     }
-}
\ No newline at end of file
+}
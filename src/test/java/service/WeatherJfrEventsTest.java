@@ -0,0 +1,63 @@
+package service;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import svs.weatherapp.analytics.WeatherAnalyticsServiceImpl;
+import svs.weatherapp.jfr.PeriodSummaryEvent;
+import svs.weatherapp.jfr.SnapshotPublishEvent;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeatherJfrEventsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void processAndSummarize_emitSnapshotAndSummaryEvents() throws IOException {
+        WeatherAnalyticsServiceImpl service = new WeatherAnalyticsServiceImpl();
+        LocalDateTime start = LocalDateTime.of(2024, 2, 1, 10, 0, 0);
+        Path file = directory.resolve("weather.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(SnapshotPublishEvent.class);
+            recording.enable(PeriodSummaryEvent.class);
+            recording.start();
+            service.processWeather(List.of(
+                    Weather.builder().city(City.TYUMEN).temperature(3.0).condition(WeatherCondition.CLOUDY)
+                            .date(start.plusSeconds(5)).build(),
+                    Weather.builder().city(City.MOSCOW).temperature(4.0).condition(WeatherCondition.SUNNY)
+                            .date(start.plusSeconds(8)).build()));
+            service.getSummaryForPeriod(start, start.plusSeconds(30));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent snapshot = events.stream()
+                .filter(event -> event.getEventType().getName().equals("svs.weatherapp.SnapshotPublish"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        assertEquals(2, snapshot.getInt("readings"));
+        assertEquals("MOSCOW,TYUMEN", snapshot.getString("cities"));
+
+        RecordedEvent summary = events.stream()
+                .filter(event -> event.getEventType().getName().equals("svs.weatherapp.PeriodSummary"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, summary.getLong("rowsScanned"));
+        assertEquals(2, summary.getLong("measurements"));
+        assertEquals("MOSCOW,TYUMEN", summary.getString("cities"));
+    }
+}
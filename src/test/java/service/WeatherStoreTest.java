@@ -0,0 +1,151 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import svs.weatherapp.analytics.WeatherStore;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeatherStoreTest {
+
+    @Test
+    void append_shouldRoundTripReadingsAcrossChunks() {
+        WeatherStore store = new WeatherStore();
+        LocalDateTime base = LocalDateTime.of(2025, 7, 12, 10, 15, 30, 123_456_789);
+
+        for (int i = 0; i < 10_000; i++) {
+            store.append(Weather.builder()
+                    .city(City.values()[i % City.values().length])
+                    .temperature(i / 10.0)
+                    .condition(WeatherCondition.values()[i % WeatherCondition.values().length])
+                    .date(base.plusSeconds(i))
+                    .build());
+        }
+
+        store.publish();
+        WeatherStore.View view = store.view();
+
+        assertEquals(10_000, view.size());
+
+        Weather weather = view.get(9_999);
+        assertEquals(City.values()[9_999 % City.values().length], weather.getCity());
+        assertEquals(999.9, weather.getTemperature(), 0.0001);
+        assertEquals(WeatherCondition.values()[9_999 % WeatherCondition.values().length], weather.getCondition());
+        assertEquals(base.plusSeconds(9_999), weather.getDate());
+    }
+
+    @Test
+    void append_outOfOrder_shouldKeepTimestampOrder() {
+        WeatherStore store = new WeatherStore();
+        LocalDateTime base = LocalDateTime.of(2025, 7, 12, 0, 0);
+
+        for (int i = 0; i < 4_998; i++) {
+            int shuffled = i % 3 == 0 ? i + 2 : i % 3 == 2 ? i - 2 : i;
+            store.append(Weather.builder()
+                    .city(City.MOSCOW)
+                    .temperature(shuffled)
+                    .condition(WeatherCondition.SUNNY)
+                    .date(base.plusSeconds(shuffled))
+                    .build());
+        }
+        store.append(Weather.builder().city(City.PITER).condition(WeatherCondition.RAINY).date(base.minusDays(1)).build());
+        store.publish();
+        WeatherStore.View view = store.view();
+
+        assertEquals(4_999, view.size());
+        assertEquals(City.PITER, view.get(0).getCity());
+        for (int i = 1; i < view.size(); i++) {
+            assertEquals(base.plusSeconds(i - 1), view.get(i).getDate());
+            assertEquals(i - 1, view.temperature(i), 0.0001);
+        }
+    }
+
+    @Test
+    void publish_lateInsert_shouldNotChangePublishedView() {
+        WeatherStore store = new WeatherStore();
+        LocalDateTime base = LocalDateTime.of(2025, 7, 12, 0, 0);
+
+        for (int i = 0; i < 5_000; i++) {
+            store.append(Weather.builder().city(City.MOSCOW).temperature(i).condition(WeatherCondition.SUNNY)
+                    .date(base.plusSeconds(i)).build());
+        }
+        store.publish();
+        WeatherStore.View before = store.view();
+
+        store.append(Weather.builder().city(City.PITER).temperature(-1).condition(WeatherCondition.RAINY)
+                .date(base.minusSeconds(1)).build());
+
+        assertSame(before, store.view());
+        assertEquals(5_000, before.size());
+        assertEquals(City.MOSCOW, before.get(0).getCity());
+        assertEquals(4_999, before.temperature(4_999), 0.0001);
+
+        store.publish();
+        WeatherStore.View after = store.view();
+        assertEquals(5_001, after.size());
+        assertEquals(City.PITER, after.get(0).getCity());
+        assertEquals(4_999, after.temperature(5_000), 0.0001);
+    }
+
+    @Test
+    void bounds_shouldRespectNanosecondPrecision() {
+        WeatherStore store = new WeatherStore();
+        LocalDateTime date = LocalDateTime.of(2025, 7, 12, 10, 0, 0, 500);
+        store.append(Weather.builder().city(City.MOSCOW).condition(WeatherCondition.SUNNY).date(date).build());
+        store.append(Weather.builder().city(City.MOSCOW).condition(WeatherCondition.SUNNY).date(date).build());
+
+        store.publish();
+        WeatherStore.View view = store.view();
+        long second = WeatherStore.toEpochSecond(date);
+
+        assertEquals(0, view.lowerBound(second, 500));
+        assertEquals(2, view.upperBound(second, 500));
+        assertEquals(2, view.lowerBound(second, 501));
+        assertEquals(0, view.upperBound(second, 499));
+    }
+
+    @Test
+    void extremeIndexes_shouldMatchBruteForceAcrossChunksAndLateInserts() {
+        WeatherStore store = new WeatherStore();
+        LocalDateTime base = LocalDateTime.of(2025, 7, 12, 0, 0);
+        Random random = new Random(11);
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 7_000; i++) {
+                store.append(Weather.builder()
+                        .city(City.values()[random.nextInt(City.values().length)])
+                        .temperature(Math.round(random.nextGaussian() * 100) / 10.0)
+                        .condition(WeatherCondition.SUNNY)
+                        .date(base.plusSeconds(random.nextInt(100_000)))
+                        .build());
+            }
+            store.publish();
+            WeatherStore.View view = store.view();
+
+            for (int query = 0; query < 50; query++) {
+                int from = random.nextInt(view.size());
+                int to = from + random.nextInt(view.size() - from + 1);
+                int k = 1 + random.nextInt(20);
+                assertArrayEquals(bruteForceExtremes(view, from, to, k, true), view.extremeIndexes(from, to, k, true));
+                assertArrayEquals(bruteForceExtremes(view, from, to, k, false),
+                        view.extremeIndexes(from, to, k, false));
+            }
+        }
+    }
+
+    private static int[] bruteForceExtremes(WeatherStore.View view, int from, int to, int k, boolean hottest) {
+        Comparator<Integer> byTemperature = Comparator.comparingDouble(view::temperature);
+        return IntStream.range(from, to).boxed()
+                .sorted((hottest ? byTemperature.reversed() : byTemperature).thenComparing(Comparator.naturalOrder()))
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
@@ -0,0 +1,46 @@
+package station;
+
+import org.junit.jupiter.api.Test;
+import svs.weatherapp.model.City;
+import svs.weatherapp.station.StationRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StationRegistryTest {
+
+    @Test
+    void id_seedsCitiesAndHandsOutDenseIds() {
+        StationRegistry registry = new StationRegistry();
+        List<String> registered = new ArrayList<>();
+        registry.addListener((id, name) -> registered.add(id + "=" + name));
+
+        for (City city : City.values()) {
+            assertEquals(city.ordinal(), registry.id(city.name()));
+            assertEquals(city, registry.city(city.ordinal()));
+        }
+        int cities = City.values().length;
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(cities + i, registry.id("station-" + i));
+        }
+
+        assertEquals(cities + 5_000, registry.size());
+        assertEquals(cities + 1234, registry.id("station-1234"));
+        assertEquals("station-4999", registry.name(cities + 4999));
+        assertNull(registry.city(cities));
+        assertEquals(-1, registry.find("unknown"));
+        assertEquals(5_000, registered.size());
+        assertEquals(cities + "=station-0", registered.getFirst());
+    }
+
+    @Test
+    void id_withInvalidName_throws() {
+        StationRegistry registry = new StationRegistry();
+
+        assertThrows(IllegalArgumentException.class, () -> registry.id(" "));
+        assertThrows(IllegalArgumentException.class, () -> registry.id("two\nlines"));
+        assertThrows(IllegalArgumentException.class, () -> registry.name(registry.size()));
+    }
+}
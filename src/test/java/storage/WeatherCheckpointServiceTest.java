@@ -0,0 +1,157 @@
+package storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import svs.weatherapp.analytics.AnalyticsShard;
+import svs.weatherapp.analytics.CityStats;
+import svs.weatherapp.analytics.TemperatureHistogram;
+import svs.weatherapp.analytics.WeatherAnalyticsServiceImpl;
+import svs.weatherapp.metrics.WeatherMetrics;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.station.StationRegistry;
+import svs.weatherapp.storage.ShardCheckpoint;
+import svs.weatherapp.storage.WeatherCheckpointServiceImpl;
+import svs.weatherapp.storage.WeatherSegmentLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeatherCheckpointServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private WeatherCheckpointServiceImpl checkpointService;
+
+    @BeforeEach
+    void setUp() {
+        checkpointService = new WeatherCheckpointServiceImpl();
+        ReflectionTestUtils.setField(checkpointService, "enabled", true);
+        ReflectionTestUtils.setField(checkpointService, "directory", directory.resolve("checkpoints"));
+    }
+
+    @Test
+    void write_thenRead_returnsSameCheckpoint() {
+        Map<String, CityStats> stationStats = new LinkedHashMap<>();
+        for (City city : City.values()) {
+            int ordinal = city.ordinal();
+            stationStats.put(city.name(), new CityStats(ordinal, 2, 3, ordinal + 5, 10.5 * ordinal, -3.0,
+                    25.0 + ordinal, TemperatureHistogram.EMPTY.with(-3.0).with(25.0 + ordinal).with(25.0 + ordinal)));
+        }
+
+        checkpointService.write(new ShardCheckpoint(3, 41, 120, stationStats));
+
+        assertEquals(List.of(3), checkpointService.storedPartitions());
+        ShardCheckpoint read = checkpointService.read(3).orElseThrow();
+        assertEquals(41, read.getOffset());
+        assertEquals(120, read.getLogRecords());
+        assertEquals(stationStats, read.getStationStats());
+        assertTrue(checkpointService.read(4).isEmpty());
+    }
+
+    @Test
+    void write_thenRead_keepsStationsByNameWithoutRegisteringThem() {
+        Map<String, CityStats> stationStats = Map.of("checkpoint-station", new CityStats(1, 0, 0, 1, -7.5, -7.5,
+                -7.5, TemperatureHistogram.EMPTY.with(-7.5)));
+
+        checkpointService.write(new ShardCheckpoint(5, 3, 0, stationStats));
+
+        assertEquals(stationStats, checkpointService.read(5).orElseThrow().getStationStats());
+        assertEquals(-1, StationRegistry.global().find("checkpoint-station"));
+        AnalyticsShard restored = new AnalyticsShard(5, null, checkpointService.read(5).orElseThrow());
+        assertEquals(1, restored.snapshot().getCityStats(StationRegistry.global().find("checkpoint-station"))
+                .getSunnyCount());
+    }
+
+    @Test
+    void write_onlyIncludesStationsTheShardHasReadings() {
+        AnalyticsShard shard = new AnalyticsShard(6);
+        shard.processWeather(List.of(Weather.builder().city(City.PITER).temperature(3.5)
+                .condition(WeatherCondition.RAINY).date(LocalDateTime.of(2024, 5, 1, 12, 0)).build()), 0, 0);
+
+        ShardCheckpoint checkpoint = shard.checkpoint();
+        checkpointService.write(checkpoint);
+
+        assertEquals(List.of(City.PITER.name()), List.copyOf(checkpoint.getStationStats().keySet()));
+        assertEquals(checkpoint.getStationStats(), checkpointService.read(6).orElseThrow().getStationStats());
+    }
+
+    @Test
+    void read_withCorruptedFile_isIgnored() throws IOException {
+        checkpointService.write(new ShardCheckpoint(0, 7, 0, Map.of()));
+        Path file = directory.resolve("checkpoints").resolve("partition-0.ckpt");
+        byte[] data = Files.readAllBytes(file);
+        data[20] ^= 1;
+        Files.write(file, data);
+
+        assertTrue(checkpointService.read(0).isEmpty());
+    }
+
+    @Test
+    void shard_restoresFromCheckpointAndDropsLogTailAfterIt() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<Weather> weathers = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            weathers.add(Weather.builder()
+                    .city(City.values()[i % City.values().length])
+                    .temperature(i - 10)
+                    .condition(WeatherCondition.values()[i % WeatherCondition.values().length])
+                    .date(start.plusMinutes(i))
+                    .build());
+        }
+
+        ShardCheckpoint checkpoint;
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory.resolve("log"), 8)) {
+            AnalyticsShard shard = new AnalyticsShard(0, log, null);
+            shard.processWeather(weathers.subList(0, 20), 19, 0);
+            checkpoint = shard.checkpoint();
+            checkpointService.write(checkpoint);
+            shard.processWeather(weathers.subList(20, 30), 29, 0);
+        }
+
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory.resolve("log"), 8)) {
+            AnalyticsShard restored = new AnalyticsShard(0, log, checkpointService.read(0).orElseThrow());
+            assertEquals(19, restored.getLastOffset());
+            assertEquals(20, log.size());
+            assertEquals(20, restored.snapshot().getHistory().size());
+            assertEquals(checkpoint.getStationStats(), restored.checkpoint().getStationStats());
+        }
+
+        AnalyticsShard withoutLog = new AnalyticsShard(0, null, checkpointService.read(0).orElseThrow());
+        assertEquals(checkpoint.getStationStats(), withoutLog.checkpoint().getStationStats());
+        assertEquals(0, withoutLog.snapshot().getHistory().size());
+    }
+
+    @Test
+    void releasePartitions_withCheckpoints_dropsShardAndRestoresItOnReassign() {
+        WeatherAnalyticsServiceImpl service = new WeatherAnalyticsServiceImpl(null, checkpointService,
+                new WeatherMetrics(new SimpleMeterRegistry()), Clock.systemDefaultZone());
+        service.processWeather(2, List.of(Weather.builder().city(City.TYUMEN).temperature(4.0)
+                .condition(WeatherCondition.CLOUDY).date(LocalDateTime.of(2024, 5, 1, 12, 0)).build()), 17);
+        long versionBefore = service.getDataVersion();
+
+        service.releasePartitions(List.of(2));
+
+        assertTrue(service.getDataVersion() > versionBefore);
+        assertEquals(0, service.getCityStats().get(City.TYUMEN.ordinal()).getCloudyDays());
+
+        service.assignPartitions(List.of(2));
+
+        assertEquals(17, service.lastAppliedOffset(2));
+        assertEquals(1, service.getCityStats().get(City.TYUMEN.ordinal()).getCloudyDays());
+    }
+}
@@ -0,0 +1,133 @@
+package storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import svs.weatherapp.analytics.AnalyticsShard;
+import svs.weatherapp.model.City;
+import svs.weatherapp.model.Weather;
+import svs.weatherapp.model.WeatherCondition;
+import svs.weatherapp.storage.WeatherSegmentLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeatherSegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_rollsSegmentsAndRecoversAfterReopen() throws IOException {
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory, 4)) {
+            for (int i = 0; i < 10; i++) {
+                log.append(1_000 + i, i, i % 4, i % 3, i / 2.0);
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory, 4)) {
+            assertEquals(10, log.size());
+            List<double[]> readings = new ArrayList<>();
+            log.scan((second, nano, city, condition, temperature) ->
+                    readings.add(new double[]{second, nano, city, condition, temperature}));
+            assertEquals(10, readings.size());
+            for (int i = 0; i < 10; i++) {
+                assertArrayEquals(new double[]{1_000 + i, i, i % 4, i % 3, i / 2.0}, readings.get(i));
+            }
+
+            log.append(2_000, 0, 0, 0, 1.0);
+            assertEquals(11, log.size());
+        }
+    }
+
+    @Test
+    void open_dropsRecordsAfterTheLastBatchEnd() {
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory, 4)) {
+            for (int i = 0; i < 6; i++) {
+                log.append(100 + i, 0, 0, 0, i);
+            }
+            log.endBatch(41);
+            log.endBatch(42);
+            log.append(106, 0, 0, 0, 6);
+            log.append(107, 0, 0, 0, 7);
+        }
+
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory, 4)) {
+            assertEquals(6, log.size());
+            assertEquals(42, log.lastOffset());
+            List<Double> temperatures = new ArrayList<>();
+            log.scan((second, nano, city, condition, temperature) -> temperatures.add(temperature));
+            assertEquals(List.of(0.0, 1.0, 2.0, 3.0, 4.0, 5.0), temperatures);
+        }
+    }
+
+    @Test
+    void shard_restoresHistoryFromLog() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<Weather> weathers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            weathers.add(Weather.builder()
+                    .city(City.values()[i % City.values().length])
+                    .temperature(i % 7 - 2.5)
+                    .condition(WeatherCondition.values()[i % WeatherCondition.values().length])
+                    .date(start.plusMinutes(i * 37L))
+                    .build());
+        }
+
+        AnalyticsShard written;
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory, 16)) {
+            written = new AnalyticsShard(0, log, null);
+            written.processWeather(weathers, -1, 0);
+        }
+
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory, 16)) {
+            AnalyticsShard restored = new AnalyticsShard(0, log, null);
+            assertEquals(50, restored.snapshot().getHistory().size());
+            assertArrayEquals(written.snapshot().getCityStats(), restored.snapshot().getCityStats());
+        }
+    }
+
+    @Test
+    void shard_withoutCheckpoint_resumesAfterTheLastBatchInTheLog() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<Weather> weathers = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            weathers.add(Weather.builder()
+                    .city(City.values()[i % City.values().length])
+                    .temperature(i)
+                    .condition(WeatherCondition.SUNNY)
+                    .date(start.plusMinutes(i))
+                    .build());
+        }
+
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory, 8)) {
+            AnalyticsShard shard = new AnalyticsShard(0, log, null);
+            shard.processWeather(weathers.subList(0, 20), 119, 0);
+            shard.processWeather(List.of(), 121, 0);
+            // a batch cut short before its end was recorded
+            log.append(2_000_000_000L, 0, 0, 0, 99.0);
+        }
+
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory, 8)) {
+            AnalyticsShard restored = new AnalyticsShard(0, log, null);
+            assertEquals(121, restored.getLastOffset());
+            assertEquals(20, restored.snapshot().getHistory().size());
+            restored.processWeather(weathers.subList(20, 30), 131, 0);
+        }
+
+        try (WeatherSegmentLog log = WeatherSegmentLog.open(directory, 8)) {
+            AnalyticsShard restored = new AnalyticsShard(0, log, null);
+            assertEquals(131, restored.getLastOffset());
+            assertEquals(30, restored.snapshot().getHistory().size());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import svs.weatherapp.analytics.WeatherAnalyticsService;
+import svs.weatherapp.controller.WeatherController;
+import svs.weatherapp.dto.WeatherAnalyticsDto;
+import svs.weatherapp.metrics.WeatherMetrics;
+import svs.weatherapp.stream.WeatherStreamServiceImpl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@ExtendWith(MockitoExtension.class)
+public class WeatherStreamServiceTest {
+
+    @Mock
+    private WeatherAnalyticsService weatherAnalyticsService;
+
+    private WeatherStreamServiceImpl weatherStreamService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        weatherStreamService = new WeatherStreamServiceImpl(weatherAnalyticsService, objectMapper);
+        WeatherController controller = new WeatherController(weatherAnalyticsService,
+                new WeatherMetrics(new SimpleMeterRegistry()), objectMapper, weatherStreamService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        weatherStreamService.close();
+    }
+
+    @Test
+    void publish_shouldPushOnlyChangedCitiesToEverySubscriber() throws Exception {
+        when(weatherAnalyticsService.getDataVersion()).thenReturn(1L);
+        when(weatherAnalyticsService.getCityStats()).thenReturn(List.of(stats("MOSCOW", 1), stats("PITER", 1)));
+        weatherStreamService.publish();
+
+        MockHttpServletResponse first = subscribe();
+        MockHttpServletResponse second = subscribe();
+        awaitEvents(first, 1);
+        awaitEvents(second, 1);
+        assertTrue(first.getContentAsString().contains("\"city\":\"MOSCOW\""));
+        assertTrue(first.getContentAsString().contains("\"city\":\"PITER\""));
+
+        when(weatherAnalyticsService.getDataVersion()).thenReturn(2L);
+        when(weatherAnalyticsService.getCityStats()).thenReturn(List.of(stats("MOSCOW", 2), stats("PITER", 1)));
+        weatherStreamService.publish();
+        weatherStreamService.publish();
+
+        String lastEvent = lastEvent(awaitEvents(first, 2));
+        assertTrue(lastEvent.contains("\"city\":\"MOSCOW\",\"sunnyDays\":2"));
+        assertFalse(lastEvent.contains("PITER"));
+        assertEquals(lastEvent, lastEvent(awaitEvents(second, 2)));
+        verify(weatherAnalyticsService, times(2)).getCityStats();
+    }
+
+    @Test
+    void subscribe_duringPublish_neverGetsAnOlderSnapshotAfterTheNewValue() throws Exception {
+        when(weatherAnalyticsService.getDataVersion()).thenReturn(1L);
+        when(weatherAnalyticsService.getCityStats()).thenReturn(List.of(stats("MOSCOW", 1)));
+        weatherStreamService.publish();
+
+        CompletableFuture<MockHttpServletResponse> subscribed = new CompletableFuture<>();
+        when(weatherAnalyticsService.getDataVersion()).thenReturn(2L);
+        when(weatherAnalyticsService.getCityStats()).thenAnswer(invocation -> {
+            Thread subscriber = Thread.ofVirtual().start(() -> {
+                try {
+                    subscribed.complete(subscribe());
+                } catch (Exception e) {
+                    subscribed.completeExceptionally(e);
+                }
+            });
+            subscriber.join(200);
+            return List.of(stats("MOSCOW", 2));
+        });
+        weatherStreamService.publish();
+
+        String content = awaitEvents(subscribed.get(5, TimeUnit.SECONDS), 1);
+        assertTrue(content.contains("\"city\":\"MOSCOW\",\"sunnyDays\":2"), content);
+        assertFalse(content.contains("\"sunnyDays\":1"), content);
+    }
+
+    private MockHttpServletResponse subscribe() throws Exception {
+        return mockMvc.perform(get("/weather/stats/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    private static String awaitEvents(MockHttpServletResponse response, int events) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (true) {
+            String content = response.getContentAsString();
+            if (content.split("event:stats", -1).length - 1 >= events) {
+                return content;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Expected " + events + " events, got: " + content);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static String lastEvent(String content) {
+        return content.substring(content.lastIndexOf("event:stats"));
+    }
+
+    private static WeatherAnalyticsDto stats(String city, int sunnyDays) {
+        return WeatherAnalyticsDto.builder()
+                .city(city)
+                .sunnyDays(sunnyDays)
+                .averageTemperature(10.0)
+                .build();
+    }
+}